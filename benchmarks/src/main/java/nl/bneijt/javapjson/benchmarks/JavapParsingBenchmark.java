@@ -0,0 +1,174 @@
+package nl.bneijt.javapjson.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import nl.bneijt.javapjson.JavapLParser;
+import nl.bneijt.javapjson.JavapLScanner;
+import nl.bneijt.javapjson.JavapOutputReader;
+import nl.bneijt.javapjson.JavapParser;
+import nl.bneijt.javapjson.JavapTextParser;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.parboiled.Parboiled;
+import org.parboiled.Rule;
+import org.parboiled.parserunners.BasicParseRunner;
+import org.parboiled.support.ParsingResult;
+
+/**
+ * Parses the javap output corpus of the plugin tests, one operation parses every file of the corpus once. The corpus is
+ * every <code>output/*.class.txt</code> resource, which the build copies from the test resources, so it is the same
+ * corpus the parser tests check.
+ *
+ * The parse benchmark runs every engine the plugin can parse javap text with: the parboiled grammar building a parse
+ * tree, the grammar building the values on its value stack and the hand written scanner. The grammar variants only
+ * match the corpus; the cold one creates a new parser instance for every file, the reused one shares a parser between
+ * operations like the plugin does. Parboiled caches the generated parser class, so cold does not include the class
+ * generation itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.lang=ALL-UNNAMED")
+public class JavapParsingBenchmark {
+
+    private static final String CORPUS_DIRECTORY = "output/";
+    private static final String CORPUS_SUFFIX = ".class.txt";
+
+    private List<String> corpus;
+    private Rule reusedRule;
+
+    /**
+     * The engine that parses javap text into a {@link nl.bneijt.javapjson.JavapLOutput}.
+     */
+    @State(Scope.Benchmark)
+    public static class Engine {
+        @Param({ "grammar", "values", "scanner" })
+        private String engine;
+
+        private JavapTextParser parser;
+
+        @Setup
+        public void createParser() {
+            if ("grammar".equals(engine)) {
+                parser = new JavapParser(true);
+            } else if ("values".equals(engine)) {
+                parser = new JavapParser(false);
+            } else if ("scanner".equals(engine)) {
+                parser = new JavapLScanner();
+            } else {
+                throw new IllegalArgumentException("Unknown engine " + engine);
+            }
+        }
+    }
+
+    @Setup
+    public void loadCorpus() throws IOException {
+        corpus = new ArrayList<String>();
+        for (String name : corpusNames()) {
+            InputStream input = JavapParsingBenchmark.class.getResourceAsStream("/" + name);
+            try {
+                corpus.add(IOUtils.toString(input, "UTF-8"));
+            } finally {
+                input.close();
+            }
+        }
+        reusedRule = Parboiled.createParser(JavapLParser.class).JavapLOutput();
+    }
+
+    @Benchmark
+    public void parse(Engine engine, Blackhole blackhole) throws IOException, MojoExecutionException {
+        for (String output : corpus) {
+            blackhole.consume(engine.parser.parse(new JavapOutputReader(new StringReader(output))));
+        }
+    }
+
+    @Benchmark
+    public void grammarCold(Blackhole blackhole) {
+        for (String output : corpus) {
+            Rule rule = Parboiled.createParser(JavapLParser.class).JavapLOutput();
+            blackhole.consume(matched(new BasicParseRunner<Object>(rule).run(output)));
+        }
+    }
+
+    @Benchmark
+    public void grammarReused(Blackhole blackhole) {
+        for (String output : corpus) {
+            blackhole.consume(matched(new BasicParseRunner<Object>(reusedRule).run(output)));
+        }
+    }
+
+    /**
+     * Lists the corpus resources in the benchmark JAR, or in the class directory when run from an IDE.
+     */
+    private static List<String> corpusNames() throws IOException {
+        File location;
+        try {
+            location = new File(JavapParsingBenchmark.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException("Could not locate the corpus", e);
+        }
+        List<String> names = new ArrayList<String>();
+        if (location.isDirectory()) {
+            String[] files = new File(location, CORPUS_DIRECTORY).list();
+            if (files != null) {
+                for (String file : files) {
+                    if (file.endsWith(CORPUS_SUFFIX)) {
+                        names.add(CORPUS_DIRECTORY + file);
+                    }
+                }
+            }
+        } else {
+            JarFile jar = new JarFile(location);
+            try {
+                for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements();) {
+                    String name = entries.nextElement().getName();
+                    if (name.startsWith(CORPUS_DIRECTORY) && name.endsWith(CORPUS_SUFFIX)
+                            && name.indexOf('/', CORPUS_DIRECTORY.length()) < 0) {
+                        names.add(name);
+                    }
+                }
+            } finally {
+                jar.close();
+            }
+        }
+        if (names.isEmpty()) {
+            throw new IOException("No " + CORPUS_DIRECTORY + "*" + CORPUS_SUFFIX + " resources in " + location);
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    private static ParsingResult<?> matched(ParsingResult<?> result) {
+        if (!result.matched) {
+            throw new IllegalStateException("Corpus file did not parse");
+        }
+        return result;
+    }
+
+}
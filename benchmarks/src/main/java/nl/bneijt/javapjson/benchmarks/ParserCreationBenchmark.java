@@ -0,0 +1,114 @@
+package nl.bneijt.javapjson.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import nl.bneijt.javapjson.JavapLParser;
+import nl.bneijt.javapjson.ParserClasses;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.parboiled.Parboiled;
+
+/**
+ * Measures what creating the parboiled javap grammar costs: generating the parser class and building the rules the
+ * plugin uses, loading the parser class generated at build time instead, and creating another parser instance from a
+ * prototype like every extraction thread does. The bytes allocated per operation of the last one are the rule graph of
+ * one parser instance.
+ *
+ * Every creation loads parboiled and the grammar in a fresh class loader, so the parser class is generated again like
+ * in a new JVM. Run with <code>-wi 0 -i 1 -f 10</code> to only measure the first creation in every JVM.
+ */
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.lang=ALL-UNNAMED")
+public class ParserCreationBenchmark {
+
+    private static final String[] RULES = { "JavapLOutput", "JavapLHeaderBlock", "JavapLMemberBlock" };
+
+    private JavapLParser prototype;
+
+    /**
+     * A class loader over the class path that has not loaded anything yet, created for every invocation.
+     */
+    @State(Scope.Thread)
+    public static class FreshClassLoader {
+        private URLClassLoader loader;
+
+        @Setup(Level.Invocation)
+        public void open() throws IOException {
+            List<URL> urls = new ArrayList<URL>();
+            for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+                urls.add(new File(entry).toURI().toURL());
+            }
+            loader = new URLClassLoader(urls.toArray(new URL[urls.size()]), ClassLoader.getPlatformClassLoader());
+        }
+
+        @TearDown(Level.Invocation)
+        public void close() throws IOException {
+            loader.close();
+        }
+    }
+
+    @Setup
+    public void createPrototype() {
+        prototype = ParserClasses.create(JavapLParser.class);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public Object generatedAtRuntime(FreshClassLoader fresh) throws Exception {
+        Class<?> grammar = fresh.loader.loadClass(JavapLParser.class.getName());
+        Class<?> parboiled = fresh.loader.loadClass(Parboiled.class.getName());
+        Method createParser = parboiled.getMethod("createParser", Class.class, Object[].class);
+        return buildRules(createParser.invoke(null, grammar, new Object[0]));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public Object generatedAtBuild(FreshClassLoader fresh) throws Exception {
+        Class<?> grammar = fresh.loader.loadClass(JavapLParser.class.getName());
+        Method create = fresh.loader.loadClass(ParserClasses.class.getName()).getMethod("create", Class.class);
+        return buildRules(create.invoke(null, grammar));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 5, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public Object newInstance() {
+        JavapLParser parser = prototype.newInstance();
+        return new Object[] { parser.JavapLOutput(), parser.JavapLHeaderBlock(), parser.JavapLMemberBlock() };
+    }
+
+    private static Object buildRules(Object parser) throws Exception {
+        Object[] rules = new Object[RULES.length];
+        for (int i = 0; i < RULES.length; i++) {
+            rules[i] = parser.getClass().getMethod(RULES[i]).invoke(parser);
+        }
+        return rules;
+    }
+
+}
@@ -0,0 +1,147 @@
+package nl.bneijt.javapjson;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * A cache of extracted dependency JARs, shared by all builds on a machine. Every entry is the complete output of one
+ * JAR, stored in a directory named after the SHA-256 hash of the JAR and the configuration that produced it.
+ *
+ * New entries are written to a staging directory and renamed into place, so a build never sees a half written entry,
+ * also when several builds fill the cache at the same time. The cache is kept below a maximum size by removing the
+ * least recently used entries, where restoring an entry counts as a use.
+ */
+public class ArtifactCache {
+
+    private static final String STAGING_SUFFIX = ".tmp-";
+    /** Staging directories this old are left behind by an aborted build. */
+    private static final long STALE_STAGING_MILLIS = 24L * 60 * 60 * 1000;
+
+    private final File directory;
+    private final String configurationKey;
+    private final long maxSize;
+
+    public ArtifactCache(File directory, String configuration, long maxSize) {
+        this.directory = directory;
+        this.configurationKey = IncrementalManifest.hash(configuration).substring(0, 12);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Copies the cached output of the JAR with the given hash to the target directory, returns false when the JAR is
+     * not in the cache.
+     */
+    public boolean restore(String jarHash, File target) throws MojoExecutionException {
+        File entry = entryFor(jarHash);
+        if (!entry.isDirectory()) {
+            return false;
+        }
+        entry.setLastModified(System.currentTimeMillis());
+        try {
+            FileUtils.copyDirectory(entry, target, false);
+        } catch (IOException e) {
+            // evicted by a concurrent build while copying
+            if (!entry.isDirectory()) {
+                return false;
+            }
+            throw new MojoExecutionException("Could not copy cached output \"" + entry + "\" to \"" + target + "\"", e);
+        }
+        return true;
+    }
+
+    /**
+     * Creates an empty directory to write the output of the JAR with the given hash to, which is added to the cache
+     * by {@link #store(String, File)}.
+     */
+    public File stage(String jarHash) throws MojoExecutionException {
+        File staging = new File(directory, entryFor(jarHash).getName() + STAGING_SUFFIX + UUID.randomUUID());
+        if (!staging.mkdirs()) {
+            throw new MojoExecutionException("Could not create cache directory \"" + staging + "\"");
+        }
+        return staging;
+    }
+
+    /**
+     * Adds the staged output to the cache. When another build stored the same JAR in the meantime its entry is kept
+     * and the staged output is thrown away.
+     */
+    public void store(String jarHash, File staging) throws MojoExecutionException {
+        File entry = entryFor(jarHash);
+        if (!entry.isDirectory() && staging.renameTo(entry)) {
+            return;
+        }
+        FileUtils.deleteQuietly(staging);
+        if (!entry.isDirectory()) {
+            throw new MojoExecutionException("Could not add \"" + staging + "\" to the cache as \"" + entry + "\"");
+        }
+    }
+
+    /**
+     * Throws away a staged output that should not be added to the cache.
+     */
+    public void discard(File staging) {
+        FileUtils.deleteQuietly(staging);
+    }
+
+    /**
+     * Removes the least recently used entries until the cache is no larger than its maximum size, and returns the
+     * number of removed entries.
+     */
+    public int evict() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return 0;
+        }
+        List<File> entries = new ArrayList<File>();
+        long now = System.currentTimeMillis();
+        for (File file : files) {
+            if (!file.isDirectory()) {
+                continue;
+            }
+            if (file.getName().contains(STAGING_SUFFIX)) {
+                if (now - file.lastModified() > STALE_STAGING_MILLIS) {
+                    FileUtils.deleteQuietly(file);
+                }
+                continue;
+            }
+            entries.add(file);
+        }
+        final long[] lastUsed = new long[entries.size()];
+        for (int i = 0; i < lastUsed.length; i++) {
+            lastUsed[i] = entries.get(i).lastModified();
+        }
+        Integer[] order = new Integer[entries.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                return Long.compare(lastUsed[b], lastUsed[a]);
+            }
+        });
+        long size = 0;
+        int removed = 0;
+        for (Integer index : order) {
+            File entry = entries.get(index);
+            size += FileUtils.sizeOfDirectory(entry);
+            if (size > maxSize) {
+                FileUtils.deleteQuietly(entry);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private File entryFor(String jarHash) {
+        return new File(directory, jarHash + "-" + configurationKey);
+    }
+
+}
@@ -0,0 +1,192 @@
+package nl.bneijt.javapjson;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.TrueFileFilter;
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * A content addressed cache of the Json of single classes, shared by all modules and projects on a machine. The Json
+ * of a class only depends on the bytes of its class file and the configuration, so identical classes in different
+ * modules, shaded copies and unchanged generated code are extracted only once.
+ *
+ * Files are hard linked between the cache and the output directory when both are on the same file system, and copied
+ * otherwise. Output files are always replaced and never written in place, so a link never changes a cached file. The
+ * cache is kept below its maximum size by removing the files that were used least recently. A hit is recorded in the
+ * modification time of an empty marker file next to the cached file, because the cached file shares its inode, and so
+ * its modification time, with the output files linked to it.
+ */
+public class ClassCache {
+
+    private static final String USED_SUFFIX = ".used";
+
+    private final File root;
+    private final File directory;
+    private final String extension;
+    private final long maxSize;
+    private int stored;
+
+    public ClassCache(File cacheDirectory, String configuration, OutputFormat format, long maxSize) {
+        this.root = cacheDirectory;
+        this.directory = new File(cacheDirectory, IncrementalManifest.hash(configuration).substring(0, 12));
+        this.extension = "." + format.getExtension();
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Puts the cached Json of the class with the given hash in place of the output file, returns false when the class
+     * is not in the cache.
+     */
+    public boolean restore(String classHash, File outputFile) throws MojoExecutionException {
+        File cached = fileFor(classHash);
+        if (!cached.isFile()) {
+            return false;
+        }
+        try {
+            markUsed(cached);
+            FileUtils.forceMkdir(outputFile.getParentFile());
+            place(cached, outputFile);
+        } catch (IOException e) {
+            // evicted by a concurrent build
+            if (!cached.isFile()) {
+                return false;
+            }
+            throw new MojoExecutionException("Could not restore cached Json \"" + cached + "\" to \"" + outputFile + "\"", e);
+        }
+        return true;
+    }
+
+    /**
+     * Adds the output file with the Json of the class with the given hash to the cache.
+     */
+    public void store(String classHash, File outputFile) throws MojoExecutionException {
+        File cached = fileFor(classHash);
+        if (cached.isFile()) {
+            return;
+        }
+        try {
+            FileUtils.forceMkdir(cached.getParentFile());
+            place(outputFile, cached);
+            markUsed(cached);
+            stored++;
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not add \"" + outputFile + "\" to the class cache", e);
+        }
+    }
+
+    /**
+     * Removes the least recently used files until the cache is no larger than its maximum size, and returns the number
+     * of removed files. Only files added since the cache was opened can make it grow, so nothing is done when none
+     * were added.
+     *
+     * The size counts the files of all configurations and plugin versions, which are evicted alike, so the files of
+     * configurations that are no longer used leave the cache as it fills up.
+     */
+    public int evict() {
+        if (stored == 0 || !root.isDirectory()) {
+            return 0;
+        }
+        Collection<File> files = FileUtils.listFiles(root, TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE);
+        List<CachedFile> cachedFiles = new ArrayList<CachedFile>(files.size());
+        long size = 0;
+        for (File file : files) {
+            if (file.getName().endsWith(USED_SUFFIX)) {
+                if (!cachedFileOf(file).isFile()) {
+                    // the cached file was evicted by a concurrent build
+                    file.delete();
+                }
+                continue;
+            }
+            CachedFile cachedFile = new CachedFile(file);
+            cachedFiles.add(cachedFile);
+            size += cachedFile.size;
+        }
+        if (size <= maxSize) {
+            return 0;
+        }
+        Collections.sort(cachedFiles, new Comparator<CachedFile>() {
+            public int compare(CachedFile a, CachedFile b) {
+                return Long.compare(a.lastUsed, b.lastUsed);
+            }
+        });
+        int removed = 0;
+        for (CachedFile cachedFile : cachedFiles) {
+            if (size <= maxSize) {
+                break;
+            }
+            if (cachedFile.file.delete()) {
+                usedMarkerOf(cachedFile.file).delete();
+                size -= cachedFile.size;
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Links or copies the source to a temporary file next to the target and renames it over the target, so readers of
+     * the target never see a partial file.
+     */
+    private static void place(File source, File target) throws IOException {
+        File temporary = new File(target.getParentFile(), "." + target.getName() + "." + UUID.randomUUID());
+        try {
+            try {
+                Files.createLink(temporary.toPath(), source.toPath());
+            } catch (IOException e) {
+                Files.copy(source.toPath(), temporary.toPath());
+            } catch (UnsupportedOperationException e) {
+                Files.copy(source.toPath(), temporary.toPath());
+            }
+            Files.move(temporary.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+
+    /**
+     * Records a use of the cached file in the modification time of its marker, creating the marker when needed.
+     */
+    private static void markUsed(File cached) throws IOException {
+        File marker = usedMarkerOf(cached);
+        if (!marker.setLastModified(System.currentTimeMillis())) {
+            FileUtils.touch(marker);
+        }
+    }
+
+    private static File usedMarkerOf(File cached) {
+        return new File(cached.getPath() + USED_SUFFIX);
+    }
+
+    private static File cachedFileOf(File usedMarker) {
+        String path = usedMarker.getPath();
+        return new File(path.substring(0, path.length() - USED_SUFFIX.length()));
+    }
+
+    private File fileFor(String classHash) {
+        return new File(directory, classHash.substring(0, 2) + File.separator + classHash.substring(2) + extension);
+    }
+
+    private static class CachedFile {
+        private final File file;
+        private final long size;
+        private final long lastUsed;
+
+        CachedFile(File file) {
+            this.file = file;
+            this.size = file.length();
+            File marker = usedMarkerOf(file);
+            this.lastUsed = marker.isFile() ? marker.lastModified() : file.lastModified();
+        }
+    }
+
+}
@@ -0,0 +1,191 @@
+package nl.bneijt.javapjson;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Finds the class files below a directory on a background thread and hands them out while the walk is still going,
+ * so extraction starts with the first class instead of after the last one. Only a limited number of found classes is
+ * queued, the walk waits when extraction falls behind.
+ *
+ * Include and exclude globs are matched against the path relative to the directory, separated by forward slashes,
+ * during the walk. A directory matching an exclude glob is skipped completely. Module and package descriptors are left
+ * out, like they are for JARs.
+ */
+public class ClassDiscovery implements ExtractionPipeline.ClassSource {
+
+    private static final String CLASS_EXTENSION = ".class";
+    private static final int QUEUE_SIZE = 1024;
+    private static final File END = new File("");
+
+    private final Path root;
+    private final List<PathMatcher> includes;
+    private final List<PathMatcher> excludes;
+    private final BlockingQueue<File> queue = new ArrayBlockingQueue<File>(QUEUE_SIZE);
+    private volatile boolean closed;
+    private volatile IOException failure;
+    private volatile long walkNanos;
+    private boolean ended;
+
+    /**
+     * @param includes globs of the classes to extract, all classes when empty
+     * @param excludes globs of the classes and directories to leave out
+     */
+    public ClassDiscovery(File directory, List<String> includes, List<String> excludes) {
+        this.root = directory.toPath();
+        FileSystem fileSystem = root.getFileSystem();
+        this.includes = matchers(fileSystem, includes);
+        this.excludes = matchers(fileSystem, excludes);
+    }
+
+    /**
+     * Splits a comma separated list of globs.
+     */
+    public static List<String> globs(String commaSeparated) {
+        List<String> globs = new ArrayList<String>();
+        if (commaSeparated != null) {
+            for (String glob : commaSeparated.split(",")) {
+                if (glob.trim().length() > 0) {
+                    globs.add(glob.trim());
+                }
+            }
+        }
+        return globs;
+    }
+
+    private static List<PathMatcher> matchers(FileSystem fileSystem, List<String> globs) {
+        List<PathMatcher> matchers = new ArrayList<PathMatcher>(globs.size());
+        for (String glob : globs) {
+            matchers.add(fileSystem.getPathMatcher("glob:" + glob));
+        }
+        return matchers;
+    }
+
+    /**
+     * Starts walking the directory.
+     */
+    public ClassDiscovery start() {
+        Thread walker = new Thread(new Runnable() {
+            public void run() {
+                long start = System.nanoTime();
+                try {
+                    walk();
+                } catch (IOException e) {
+                    failure = e;
+                } finally {
+                    walkNanos = System.nanoTime() - start;
+                    offer(END);
+                }
+            }
+        }, "javap-json-discovery");
+        walker.setDaemon(true);
+        walker.start();
+        return this;
+    }
+
+    private void walk() throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) {
+                if (closed) {
+                    return FileVisitResult.TERMINATE;
+                }
+                return directory.equals(root) || !matchesAny(excludes, root.relativize(directory))
+                        ? FileVisitResult.CONTINUE
+                        : FileVisitResult.SKIP_SUBTREE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                String name = file.getFileName().toString();
+                if (!attributes.isRegularFile() || !name.endsWith(CLASS_EXTENSION)
+                        || name.equals("module-info.class") || name.equals("package-info.class")) {
+                    return FileVisitResult.CONTINUE;
+                }
+                Path relative = root.relativize(file);
+                if ((includes.isEmpty() || matchesAny(includes, relative)) && !matchesAny(excludes, relative)) {
+                    return offer(file.toFile()) ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static boolean matchesAny(List<PathMatcher> matchers, Path path) {
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Queues the file, waiting for room until the discovery is closed.
+     */
+    private boolean offer(File file) {
+        try {
+            while (!closed) {
+                if (queue.offer(file, 100, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * Returns the next class file, waiting for the walk when needed, or null when all classes have been found.
+     */
+    public File next() throws MojoExecutionException {
+        if (ended) {
+            return null;
+        }
+        File file;
+        try {
+            file = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while discovering classes", e);
+        }
+        if (file == END) {
+            ended = true;
+            if (failure != null) {
+                throw new MojoExecutionException("Could not list the classes in \"" + root + "\"", failure);
+            }
+            return null;
+        }
+        return file;
+    }
+
+    /**
+     * The time the walk took, which overlaps with extraction. Only known after {@link #next()} returned null.
+     */
+    public long getWalkNanos() {
+        return walkNanos;
+    }
+
+    /**
+     * Stops the walk when it is still running.
+     */
+    public void close() {
+        closed = true;
+    }
+
+}
@@ -0,0 +1,124 @@
+package nl.bneijt.javapjson;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Decodes class files directly with {@link ClassFileReader}, without starting javap or parsing text.
+ *
+ * Class files are read into a buffer that is kept per thread and only grows, so reading a class does not allocate
+ * a new byte array for its contents.
+ */
+public class ClassFileEngine implements ExtractionEngine {
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final ThreadLocal<ByteBuffer> buffers = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        }
+    };
+
+    public JavapLOutput extract(File classFile) throws MojoExecutionException {
+        try {
+            return new ClassFileReader(readFully(classFile)).read();
+        } catch (MojoExecutionException e) {
+            throw new MojoExecutionException("Could not read class file \"" + classFile + "\": " + e.getMessage(), e);
+        }
+    }
+
+    public List<JavapLOutput> extractAll(ZipFile jar, List<ZipEntry> entries) throws MojoExecutionException {
+        List<JavapLOutput> outputs = new ArrayList<JavapLOutput>(entries.size());
+        for (ZipEntry entry : entries) {
+            try {
+                outputs.add(new ClassFileReader(readFully(jar, entry)).read());
+            } catch (MojoExecutionException e) {
+                throw new MojoExecutionException("Could not read \"" + entry.getName() + "\" from \"" + jar.getName() + "\": " + e.getMessage(), e);
+            }
+        }
+        return outputs;
+    }
+
+    private ByteBuffer readFully(ZipFile jar, ZipEntry entry) throws MojoExecutionException {
+        try {
+            InputStream input = jar.getInputStream(entry);
+            try {
+                // One byte more than the entry size, so the end of the entry is read without growing the buffer
+                ByteBuffer buffer = bufferFor(entry.getSize() >= 0 ? entry.getSize() + 1 : INITIAL_BUFFER_SIZE);
+                int count;
+                while ((count = input.read(buffer.array(), buffer.position(), buffer.remaining())) >= 0) {
+                    buffer.position(buffer.position() + count);
+                    if (!buffer.hasRemaining()) {
+                        // The size is unknown or wrong, grow and keep reading
+                        ByteBuffer larger = bufferFor(buffer.capacity() * 2L);
+                        buffer.flip();
+                        larger.put(buffer);
+                        buffer = larger;
+                    }
+                }
+                buffer.flip();
+                return buffer;
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not read \"" + entry.getName() + "\" from \"" + jar.getName() + "\"", e);
+        }
+    }
+
+    /**
+     * Returns the cleared buffer of this thread, replaced by a larger one when it can not hold the given size.
+     */
+    private ByteBuffer bufferFor(long size) throws MojoExecutionException {
+        if (size > Integer.MAX_VALUE / 2) {
+            throw new MojoExecutionException("Class file of " + size + " bytes is too large");
+        }
+        ByteBuffer buffer = buffers.get();
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(Integer.highestOneBit((int) size) << 1);
+            buffers.set(buffer);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    private ByteBuffer readFully(File classFile) throws MojoExecutionException {
+        FileInputStream input = null;
+        try {
+            input = new FileInputStream(classFile);
+            FileChannel channel = input.getChannel();
+            long size = channel.size();
+            ByteBuffer buffer = bufferFor(size);
+            buffer.limit((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            return buffer;
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not read class file \"" + classFile + "\"", e);
+        } finally {
+            if (input != null) {
+                try {
+                    input.close();
+                } catch (IOException e) {
+                    // Ignore, everything has been read
+                }
+            }
+        }
+    }
+
+}
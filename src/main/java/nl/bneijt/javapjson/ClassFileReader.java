@@ -0,0 +1,489 @@
+package nl.bneijt.javapjson;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Decodes the parts of a class file that <code>javap -l</code> prints: the class header, the non-private
+ * members and their <code>LineNumberTable</code> and <code>LocalVariableTable</code> attributes.
+ *
+ * Like javap, types are taken from the <code>Signature</code> attribute when there is one, so they keep their type
+ * arguments and constructors of inner classes do not list the synthetic parameters of their descriptor. The last
+ * parameter of a varargs method is printed with <code>...</code>.
+ *
+ * Only the constant pool offsets are decoded up front, strings are decoded when they are used.
+ */
+public class ClassFileReader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_PROTECTED = 0x0004;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SYNCHRONIZED = 0x0020;
+    private static final int ACC_VOLATILE = 0x0040;
+    private static final int ACC_TRANSIENT = 0x0080;
+    private static final int ACC_VARARGS = 0x0080;
+    private static final int ACC_NATIVE = 0x0100;
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+    private static final int ACC_STRICT = 0x0800;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+
+    /**
+     * The first class file version with default methods, javap only marks them from this version on.
+     */
+    private static final int DEFAULT_METHODS_MAJOR_VERSION = 52;
+
+    private final ByteBuffer buffer;
+    private int[] constantOffsets;
+    private int majorVersion;
+    private boolean isInterface;
+
+    public ClassFileReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public JavapLOutput read() throws MojoExecutionException {
+        try {
+            return readClass();
+        } catch (BufferUnderflowException e) {
+            throw new MojoExecutionException("Class file is truncated", e);
+        } catch (IndexOutOfBoundsException e) {
+            throw new MojoExecutionException("Class file is corrupt", e);
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException("Class file is corrupt", e);
+        }
+    }
+
+    private JavapLOutput readClass() throws MojoExecutionException {
+        if (buffer.getInt() != MAGIC) {
+            throw new MojoExecutionException("Not a class file, magic number does not match");
+        }
+        buffer.getShort(); // minor version
+        majorVersion = u2();
+        readConstantPool();
+
+        JavapLOutput output = new JavapLOutput();
+        int accessFlags = u2();
+        isInterface = (accessFlags & ACC_INTERFACE) != 0;
+        addClassModifiers(accessFlags, output.getModifiers());
+        output.setClassName(className(u2()));
+        int superClass = u2();
+        String superClassName = superClass != 0 ? className(superClass) : null;
+        int interfaceCount = u2();
+        List<String> interfaces = new ArrayList<String>(interfaceCount);
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaces.add(className(u2()));
+        }
+
+        int fieldCount = u2();
+        for (int i = 0; i < fieldCount; i++) {
+            JavapMember field = readMember(false);
+            if (field != null) {
+                output.getMembers().add(field);
+            }
+        }
+        int methodCount = u2();
+        for (int i = 0; i < methodCount; i++) {
+            JavapMember method = readMember(true);
+            if (method != null) {
+                output.getMembers().add(method);
+            }
+        }
+
+        int attributeCount = u2();
+        for (int i = 0; i < attributeCount; i++) {
+            String attributeName = utf8(u2());
+            int length = buffer.getInt();
+            if ("SourceFile".equals(attributeName)) {
+                output.setSourceFile(utf8(u2()));
+            } else if ("Signature".equals(attributeName)) {
+                List<String> types = new ArrayList<String>();
+                String signature = utf8(u2());
+                int index = skipTypeParameters(signature, 0);
+                while (index < signature.length()) {
+                    index = decodeSignature(signature, index, types);
+                }
+                superClassName = types.get(0);
+                interfaces = types.subList(1, types.size());
+            } else {
+                skip(length);
+            }
+        }
+        output.setSuperClassName(superClassName);
+        output.getInterfaces().addAll(interfaces);
+        return output;
+    }
+
+    private void readConstantPool() throws MojoExecutionException {
+        int count = u2();
+        constantOffsets = new int[count];
+        for (int i = 1; i < count; i++) {
+            constantOffsets[i] = buffer.position();
+            int tag = buffer.get() & 0xFF;
+            switch (tag) {
+            case CONSTANT_UTF8:
+                skip(u2());
+                break;
+            case CONSTANT_CLASS:
+            case 8: // String
+            case 16: // MethodType
+            case 19: // Module
+            case 20: // Package
+                skip(2);
+                break;
+            case 15: // MethodHandle
+                skip(3);
+                break;
+            case 3: // Integer
+            case 4: // Float
+            case 9: // Fieldref
+            case 10: // Methodref
+            case 11: // InterfaceMethodref
+            case 12: // NameAndType
+            case 17: // Dynamic
+            case 18: // InvokeDynamic
+                skip(4);
+                break;
+            case CONSTANT_LONG:
+            case CONSTANT_DOUBLE:
+                skip(8);
+                i++;
+                break;
+            default:
+                throw new MojoExecutionException("Unknown constant pool tag " + tag + " at index " + i);
+            }
+        }
+    }
+
+    /**
+     * Reads a field or method, returning null for private members because javap does not list those by default.
+     */
+    private JavapMember readMember(boolean isMethod) {
+        int accessFlags = u2();
+        String name = utf8(u2());
+        String descriptor = utf8(u2());
+        String signature = null;
+        JavapMember member = new JavapMember();
+        addMemberModifiers(accessFlags, isMethod, member.getModifiers());
+        if (isMethod && isInterface && majorVersion >= DEFAULT_METHODS_MAJOR_VERSION && !name.equals("<clinit>")
+                && (accessFlags & (ACC_ABSTRACT | ACC_STATIC | ACC_PRIVATE)) == 0) {
+            member.getModifiers().add("default");
+        }
+        member.setName(name);
+
+        List<String> exceptions = member.getExceptions();
+        int attributeCount = u2();
+        for (int i = 0; i < attributeCount; i++) {
+            String attributeName = utf8(u2());
+            int length = buffer.getInt();
+            int end = buffer.position() + length;
+            if (isMethod && "Code".equals(attributeName)) {
+                readCode(member);
+            } else if (isMethod && "Exceptions".equals(attributeName)) {
+                int exceptionCount = u2();
+                for (int e = 0; e < exceptionCount; e++) {
+                    exceptions.add(className(u2()));
+                }
+            } else if ("Signature".equals(attributeName)) {
+                signature = utf8(u2());
+            }
+            buffer.position(end);
+        }
+
+        if (isMethod) {
+            List<String> parameters = new ArrayList<String>();
+            List<String> returnAndThrows = new ArrayList<String>(1);
+            if (signature != null) {
+                int index = skipTypeParameters(signature, 0) + 1;
+                while (signature.charAt(index) != ')') {
+                    index = decodeSignature(signature, index, parameters);
+                }
+                index = decodeSignature(signature, index + 1, returnAndThrows);
+                // javap prints the thrown types of the signature in their internal form, and only for methods that
+                // have an Exceptions attribute
+                List<String> thrown = new ArrayList<String>(0);
+                while (index < signature.length()) {
+                    StringBuilder type = new StringBuilder();
+                    index = appendSignature(signature, index + 1, type, '/');
+                    thrown.add(type.toString());
+                }
+                if (!thrown.isEmpty() && !exceptions.isEmpty()) {
+                    exceptions.clear();
+                    exceptions.addAll(thrown);
+                }
+            } else {
+                int end = descriptor.indexOf(')');
+                int index = 1;
+                while (index < end) {
+                    index = decodeType(descriptor, index, parameters);
+                }
+                decodeType(descriptor, end + 1, returnAndThrows);
+            }
+            int last = parameters.size() - 1;
+            if ((accessFlags & ACC_VARARGS) != 0 && last >= 0 && parameters.get(last).endsWith("[]")) {
+                String parameter = parameters.get(last);
+                parameters.set(last, parameter.substring(0, parameter.length() - 2) + "...");
+            }
+            member.setParameters(parameters);
+            if (!name.equals("<init>") && !name.equals("<clinit>")) {
+                member.setType(returnAndThrows.get(0));
+            }
+        } else {
+            List<String> fieldType = new ArrayList<String>(1);
+            if (signature != null) {
+                decodeSignature(signature, 0, fieldType);
+            } else {
+                decodeType(descriptor, 0, fieldType);
+            }
+            member.setType(fieldType.get(0));
+        }
+        return (accessFlags & ACC_PRIVATE) != 0 ? null : member;
+    }
+
+    private void readCode(JavapMember member) {
+        skip(4); // max_stack, max_locals
+        skip(buffer.getInt()); // code
+        skip(u2() * 8); // exception_table
+        int attributeCount = u2();
+        for (int i = 0; i < attributeCount; i++) {
+            String attributeName = utf8(u2());
+            int length = buffer.getInt();
+            int end = buffer.position() + length;
+            if ("LineNumberTable".equals(attributeName)) {
+                int rows = u2();
+                LineNumberTable lineNumberTable = member.getLineNumberTable();
+                lineNumberTable.ensureCapacity(lineNumberTable.size() + rows);
+                for (int r = 0; r < rows; r++) {
+                    int start = u2();
+                    int line = u2();
+                    lineNumberTable.add(line, start);
+                }
+            } else if ("LocalVariableTable".equals(attributeName)) {
+                int rows = u2();
+                LocalVariableTable localVariableTable = member.getLocalVariableTable();
+                localVariableTable.ensureCapacity(localVariableTable.size() + rows);
+                for (int r = 0; r < rows; r++) {
+                    int start = u2();
+                    int variableLength = u2();
+                    String name = utf8(u2());
+                    String signature = utf8(u2());
+                    int slot = u2();
+                    localVariableTable.add(start, variableLength, slot, name, signature);
+                }
+            }
+            buffer.position(end);
+        }
+    }
+
+    /**
+     * Decodes the field descriptor starting at <code>index</code> into its Java source name and returns the index
+     * just after it.
+     */
+    static int decodeType(String descriptor, int index, List<String> types) {
+        int dimensions = 0;
+        while (descriptor.charAt(index) == '[') {
+            dimensions++;
+            index++;
+        }
+        String type;
+        char c = descriptor.charAt(index);
+        if (c == 'L') {
+            int end = descriptor.indexOf(';', index);
+            type = descriptor.substring(index + 1, end).replace('/', '.');
+            index = end + 1;
+        } else {
+            type = primitiveName(c);
+            index++;
+        }
+        StringBuilder name = new StringBuilder(type);
+        for (int i = 0; i < dimensions; i++) {
+            name.append("[]");
+        }
+        types.add(name.toString());
+        return index;
+    }
+
+    /**
+     * Decodes the type signature starting at <code>index</code> into its Java source name the way javap prints it,
+     * with its type arguments, and returns the index just after it.
+     */
+    static int decodeSignature(String signature, int index, List<String> types) {
+        StringBuilder type = new StringBuilder();
+        index = appendSignature(signature, index, type, '.');
+        types.add(type.toString());
+        return index;
+    }
+
+    private static int appendSignature(String signature, int index, StringBuilder type, char packageSeparator) {
+        char c = signature.charAt(index);
+        switch (c) {
+        case '[':
+            index = appendSignature(signature, index + 1, type, packageSeparator);
+            type.append("[]");
+            return index;
+        case 'T': {
+            int end = signature.indexOf(';', index);
+            type.append(signature, index + 1, end);
+            return end + 1;
+        }
+        case 'L':
+            index++;
+            while (true) {
+                c = signature.charAt(index++);
+                if (c == ';') {
+                    return index;
+                } else if (c == '<') {
+                    type.append('<');
+                    while (signature.charAt(index) != '>') {
+                        if (type.charAt(type.length() - 1) != '<') {
+                            type.append(", ");
+                        }
+                        index = appendTypeArgument(signature, index, type, packageSeparator);
+                    }
+                    index++;
+                    type.append('>');
+                } else {
+                    type.append(c == '/' ? packageSeparator : c);
+                }
+            }
+        default:
+            type.append(primitiveName(c));
+            return index + 1;
+        }
+    }
+
+    private static int appendTypeArgument(String signature, int index, StringBuilder type, char packageSeparator) {
+        switch (signature.charAt(index)) {
+        case '*':
+            type.append('?');
+            return index + 1;
+        case '+':
+            type.append("? extends ");
+            return appendSignature(signature, index + 1, type, packageSeparator);
+        case '-':
+            type.append("? super ");
+            return appendSignature(signature, index + 1, type, packageSeparator);
+        default:
+            return appendSignature(signature, index, type, packageSeparator);
+        }
+    }
+
+    /**
+     * Returns the index just after the formal type parameters at the start of a class or method signature, javap does
+     * not print them as part of the types.
+     */
+    private static int skipTypeParameters(String signature, int index) {
+        if (signature.charAt(index) != '<') {
+            return index;
+        }
+        index++;
+        StringBuilder bounds = new StringBuilder();
+        while (signature.charAt(index) != '>') {
+            // An identifier, its class bound that may be empty and its interface bounds, each after a colon
+            index = signature.indexOf(':', index);
+            while (signature.charAt(index) == ':') {
+                index++;
+                char c = signature.charAt(index);
+                if (c == 'L' || c == 'T' || c == '[') {
+                    index = appendSignature(signature, index, bounds, '.');
+                }
+            }
+        }
+        return index + 1;
+    }
+
+    private static String primitiveName(char c) {
+        switch (c) {
+        case 'B': return "byte";
+        case 'C': return "char";
+        case 'D': return "double";
+        case 'F': return "float";
+        case 'I': return "int";
+        case 'J': return "long";
+        case 'S': return "short";
+        case 'Z': return "boolean";
+        case 'V': return "void";
+        default:
+            throw new IllegalArgumentException("Unknown descriptor type '" + c + "'");
+        }
+    }
+
+    private static void addClassModifiers(int accessFlags, List<String> modifiers) {
+        if ((accessFlags & ACC_PUBLIC) != 0) modifiers.add("public");
+        if ((accessFlags & ACC_FINAL) != 0) modifiers.add("final");
+        if ((accessFlags & ACC_INTERFACE) != 0) {
+            modifiers.add("interface");
+        } else {
+            if ((accessFlags & ACC_ABSTRACT) != 0) modifiers.add("abstract");
+            modifiers.add("class");
+        }
+    }
+
+    private static void addMemberModifiers(int accessFlags, boolean isMethod, List<String> modifiers) {
+        if ((accessFlags & ACC_PUBLIC) != 0) modifiers.add("public");
+        if ((accessFlags & ACC_PROTECTED) != 0) modifiers.add("protected");
+        if ((accessFlags & ACC_PRIVATE) != 0) modifiers.add("private");
+        if ((accessFlags & ACC_STATIC) != 0) modifiers.add("static");
+        if ((accessFlags & ACC_FINAL) != 0) modifiers.add("final");
+        if (isMethod) {
+            if ((accessFlags & ACC_SYNCHRONIZED) != 0) modifiers.add("synchronized");
+            if ((accessFlags & ACC_NATIVE) != 0) modifiers.add("native");
+            if ((accessFlags & ACC_ABSTRACT) != 0) modifiers.add("abstract");
+            if ((accessFlags & ACC_STRICT) != 0) modifiers.add("strictfp");
+        } else {
+            if ((accessFlags & ACC_VOLATILE) != 0) modifiers.add("volatile");
+            if ((accessFlags & ACC_TRANSIENT) != 0) modifiers.add("transient");
+        }
+    }
+
+    private String className(int index) {
+        int offset = constantOffsets[index];
+        return utf8(buffer.getShort(offset + 1) & 0xFFFF).replace('/', '.');
+    }
+
+    /**
+     * Decodes a modified UTF-8 constant without moving the buffer position.
+     */
+    private String utf8(int index) {
+        int offset = constantOffsets[index];
+        int length = buffer.getShort(offset + 1) & 0xFFFF;
+        int position = offset + 3;
+        int end = position + length;
+        char[] chars = new char[length];
+        int count = 0;
+        while (position < end) {
+            int b = buffer.get(position++) & 0xFF;
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[count++] = (char) (((b & 0x1F) << 6) | (buffer.get(position++) & 0x3F));
+            } else {
+                int b2 = buffer.get(position++) & 0x3F;
+                int b3 = buffer.get(position++) & 0x3F;
+                chars[count++] = (char) (((b & 0x0F) << 12) | (b2 << 6) | b3);
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    private int u2() {
+        return buffer.getShort() & 0xFFFF;
+    }
+
+    private void skip(int bytes) {
+        buffer.position(buffer.position() + bytes);
+    }
+
+}
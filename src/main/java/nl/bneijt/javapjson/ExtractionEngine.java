@@ -0,0 +1,35 @@
+package nl.bneijt.javapjson;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Turns a compiled class file into the information <code>javap -l</code> shows for it.
+ */
+public interface ExtractionEngine {
+
+    JavapLOutput extract(File classFile) throws MojoExecutionException;
+
+    /**
+     * Extracts several classes at once, returning the results in the order of the given class files. Engines that
+     * have a fixed cost per invocation override this to share that cost over the whole batch.
+     */
+    default List<JavapLOutput> extractAll(List<File> classFiles) throws MojoExecutionException {
+        List<JavapLOutput> outputs = new ArrayList<JavapLOutput>(classFiles.size());
+        for (File classFile : classFiles) {
+            outputs.add(extract(classFile));
+        }
+        return outputs;
+    }
+
+    /**
+     * Extracts classes straight from the entries of a JAR, returning the results in the order of the given entries.
+     */
+    List<JavapLOutput> extractAll(ZipFile jar, List<ZipEntry> entries) throws MojoExecutionException;
+
+}
@@ -0,0 +1,210 @@
+package nl.bneijt.javapjson;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Extracts class files in batches on a pool of worker threads and hands the results to a {@link ResultHandler} on
+ * the calling thread, in the order of the given class files. Only a few batches per thread are kept in flight, so
+ * memory use does not grow with the number of classes.
+ */
+public class ExtractionPipeline {
+
+    public interface ResultHandler {
+        void handle(File classFile, JavapLOutput output) throws MojoExecutionException;
+    }
+
+    /**
+     * Class files that become available one by one, like a directory walk that is still going.
+     */
+    public interface ClassSource {
+        /**
+         * Returns the next class file, or null when there are no more.
+         */
+        File next() throws MojoExecutionException;
+    }
+
+    private static final int BATCHES_IN_FLIGHT_PER_THREAD = 2;
+
+    private final ExtractionEngine engine;
+    private final int threads;
+    private final int batchSize;
+    private final PhaseTimings timings;
+    private final ExecutorService sharedExecutor;
+
+    public ExtractionPipeline(ExtractionEngine engine, int threads, int batchSize) {
+        this(engine, threads, batchSize, null);
+    }
+
+    /**
+     * Creates a pipeline that records the extract time of every class, a batch is divided evenly over its classes.
+     */
+    public ExtractionPipeline(ExtractionEngine engine, int threads, int batchSize, PhaseTimings timings) {
+        this(engine, threads, batchSize, timings, null);
+    }
+
+    /**
+     * Creates a pipeline that runs its batches on the given executor instead of starting its own threads, like the
+     * {@link SharedWorkers}. The executor is not shut down, only the batches of this pipeline are cancelled on failure.
+     */
+    public ExtractionPipeline(ExtractionEngine engine, int threads, int batchSize, PhaseTimings timings, ExecutorService executor) {
+        this.engine = engine;
+        this.threads = threads;
+        this.batchSize = batchSize;
+        this.timings = timings;
+        this.sharedExecutor = executor;
+    }
+
+    public void run(List<File> classFiles, ResultHandler handler) throws MojoExecutionException {
+        if (threads <= 1) {
+            for (int start = 0; start < classFiles.size(); start += batchSize) {
+                List<File> batch = classFiles.subList(start, Math.min(start + batchSize, classFiles.size()));
+                handleBatch(batch, extract(batch), handler);
+            }
+            return;
+        }
+        // Make sure every thread gets work, even when the module has fewer classes than threads times the batch size
+        int chunkSize = Math.max(1, Math.min(batchSize, (classFiles.size() + threads - 1) / threads));
+        ExecutorService executor = startExecutor();
+        Deque<Future<List<JavapLOutput>>> inFlight = new ArrayDeque<Future<List<JavapLOutput>>>();
+        try {
+            Deque<List<File>> inFlightBatches = new ArrayDeque<List<File>>();
+            for (int start = 0; start < classFiles.size(); start += chunkSize) {
+                submit(executor, classFiles.subList(start, Math.min(start + chunkSize, classFiles.size())), inFlight, inFlightBatches);
+                if (inFlight.size() >= threads * BATCHES_IN_FLIGHT_PER_THREAD) {
+                    handleBatch(inFlightBatches.remove(), await(inFlight.remove()), handler);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                handleBatch(inFlightBatches.remove(), await(inFlight.remove()), handler);
+            }
+        } finally {
+            stopExecutor(executor, inFlight);
+        }
+    }
+
+    /**
+     * Extracts the class files of the source while it is still producing them. Batches start small so all threads get
+     * work on small modules, and grow to the batch size as more classes are found.
+     */
+    public void run(ClassSource classFiles, ResultHandler handler) throws MojoExecutionException {
+        if (threads <= 1) {
+            List<File> batch = new ArrayList<File>(batchSize);
+            for (File classFile = classFiles.next(); classFile != null; classFile = classFiles.next()) {
+                batch.add(classFile);
+                if (batch.size() == batchSize) {
+                    handleBatch(batch, extract(batch), handler);
+                    batch = new ArrayList<File>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                handleBatch(batch, extract(batch), handler);
+            }
+            return;
+        }
+        ExecutorService executor = startExecutor();
+        Deque<Future<List<JavapLOutput>>> inFlight = new ArrayDeque<Future<List<JavapLOutput>>>();
+        try {
+            Deque<List<File>> inFlightBatches = new ArrayDeque<List<File>>();
+            int found = 0;
+            List<File> batch = new ArrayList<File>();
+            for (File classFile = classFiles.next(); classFile != null; classFile = classFiles.next()) {
+                batch.add(classFile);
+                found++;
+                if (batch.size() >= Math.max(1, Math.min(batchSize, found / threads))) {
+                    submit(executor, batch, inFlight, inFlightBatches);
+                    batch = new ArrayList<File>();
+                    if (inFlight.size() >= threads * BATCHES_IN_FLIGHT_PER_THREAD) {
+                        handleBatch(inFlightBatches.remove(), await(inFlight.remove()), handler);
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                submit(executor, batch, inFlight, inFlightBatches);
+            }
+            while (!inFlight.isEmpty()) {
+                handleBatch(inFlightBatches.remove(), await(inFlight.remove()), handler);
+            }
+        } finally {
+            stopExecutor(executor, inFlight);
+        }
+    }
+
+    private ExecutorService startExecutor() {
+        return sharedExecutor != null ? sharedExecutor : Executors.newFixedThreadPool(threads, new WorkerThreadFactory());
+    }
+
+    private void stopExecutor(ExecutorService executor, Deque<? extends Future<?>> inFlight) {
+        if (executor != sharedExecutor) {
+            executor.shutdownNow();
+            return;
+        }
+        for (Future<?> future : inFlight) {
+            future.cancel(true);
+        }
+    }
+
+    private void submit(ExecutorService executor, final List<File> batch, Deque<Future<List<JavapLOutput>>> inFlight, Deque<List<File>> inFlightBatches) {
+        inFlight.add(executor.submit(new Callable<List<JavapLOutput>>() {
+            public List<JavapLOutput> call() throws MojoExecutionException {
+                return extract(batch);
+            }
+        }));
+        inFlightBatches.add(batch);
+    }
+
+    private List<JavapLOutput> extract(List<File> batch) throws MojoExecutionException {
+        long start = System.nanoTime();
+        List<JavapLOutput> outputs = engine.extractAll(batch);
+        if (timings != null) {
+            long perClass = (System.nanoTime() - start) / batch.size();
+            for (File classFile : batch) {
+                timings.record(PhaseTimings.EXTRACT, classFile, perClass);
+            }
+        }
+        return outputs;
+    }
+
+    private static void handleBatch(List<File> batch, List<JavapLOutput> outputs, ResultHandler handler) throws MojoExecutionException {
+        for (int i = 0; i < batch.size(); i++) {
+            handler.handle(batch.get(i), outputs.get(i));
+        }
+    }
+
+    private static List<JavapLOutput> await(Future<List<JavapLOutput>> future) throws MojoExecutionException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while waiting for class extraction", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof MojoExecutionException) {
+                throw (MojoExecutionException) e.getCause();
+            }
+            throw new MojoExecutionException("Class extraction failed", e.getCause());
+        }
+    }
+
+    static class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "javap-json-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
@@ -0,0 +1,252 @@
+package nl.bneijt.javapjson;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Remembers size, modification time and SHA-256 hash of every class file that was processed, so later runs only
+ * process new or changed classes.
+ *
+ * A class is up to date when its size and modification time did not change. When only the modification time changed
+ * the class is hashed, so a recompile that produces the same bytes is still skipped. The manifest is thrown away when
+ * the plugin configuration that influences the output changes, but the classes it listed are kept apart so their
+ * output can be removed.
+ */
+public class IncrementalManifest {
+
+    private static final int HASH_BUFFER_SIZE = 8 * 1024;
+
+    private final File manifestFile;
+    private final String configuration;
+    private final Map<String, Entry> entries = new TreeMap<String, Entry>();
+    private final Map<String, String> knownHashes = new HashMap<String, String>();
+    private final List<String> previousConfigurationPaths = new ArrayList<String>();
+
+    private IncrementalManifest(File manifestFile, String configuration) {
+        this.manifestFile = manifestFile;
+        this.configuration = configuration;
+    }
+
+    /**
+     * Loads the manifest, or returns an empty one when it does not exist, can not be read or was written for a
+     * different configuration.
+     */
+    public static IncrementalManifest load(JsonFactory jsonFactory, File manifestFile, String configuration) {
+        IncrementalManifest manifest = new IncrementalManifest(manifestFile, configuration);
+        if (!manifestFile.exists()) {
+            return manifest;
+        }
+        try {
+            JsonParser parser = jsonFactory.createJsonParser(manifestFile);
+            try {
+                if (!manifest.readFrom(parser)) {
+                    manifest.previousConfigurationPaths.addAll(manifest.entries.keySet());
+                    manifest.entries.clear();
+                }
+            } finally {
+                parser.close();
+            }
+        } catch (IOException e) {
+            manifest.entries.clear();
+        }
+        return manifest;
+    }
+
+    private boolean readFrom(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        boolean sameConfiguration = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("configuration".equals(field)) {
+                sameConfiguration = configuration.equals(parser.getText());
+            } else if ("classes".equals(field)) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String path = parser.getCurrentName();
+                    parser.nextToken();
+                    Entry entry = new Entry();
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String entryField = parser.getCurrentName();
+                        parser.nextToken();
+                        if ("size".equals(entryField)) {
+                            entry.size = parser.getLongValue();
+                        } else if ("lastModified".equals(entryField)) {
+                            entry.lastModified = parser.getLongValue();
+                        } else if ("sha256".equals(entryField)) {
+                            entry.hash = parser.getText();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    entries.put(path, entry);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return sameConfiguration;
+    }
+
+    /**
+     * Returns the classes of a manifest that was written for a different configuration, whose output may be stale or
+     * in another format, or an empty list when the manifest was written for this configuration.
+     */
+    public List<String> previousConfigurationPaths() {
+        return previousConfigurationPaths;
+    }
+
+    public boolean isUpToDate(String path, File classFile) throws MojoExecutionException {
+        Entry entry = entries.get(path);
+        if (entry == null) {
+            return false;
+        }
+        long size = classFile.length();
+        long lastModified = classFile.lastModified();
+        if (entry.size == size && entry.lastModified == lastModified) {
+            return true;
+        }
+        if (entry.size != size) {
+            return false;
+        }
+        String hash = hash(classFile);
+        knownHashes.put(path, hash);
+        if (hash.equals(entry.hash)) {
+            entry.lastModified = lastModified;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records that the class file has been processed in its current state.
+     */
+    public void record(String path, File classFile) throws MojoExecutionException {
+        record(path, classFile, null);
+    }
+
+    /**
+     * Records that the class file has been processed in its current state, with its hash when it is already known.
+     */
+    public void record(String path, File classFile, String hash) throws MojoExecutionException {
+        Entry entry = new Entry();
+        entry.size = classFile.length();
+        entry.lastModified = classFile.lastModified();
+        entry.hash = knownHashes.remove(path);
+        if (entry.hash == null) {
+            entry.hash = hash != null ? hash : hash(classFile);
+        }
+        entries.put(path, entry);
+    }
+
+    /**
+     * Forgets all classes that are not in the given set of paths and returns the forgotten paths.
+     */
+    public List<String> retainOnly(Set<String> paths) {
+        List<String> removed = new ArrayList<String>();
+        for (Iterator<String> iterator = entries.keySet().iterator(); iterator.hasNext();) {
+            String path = iterator.next();
+            if (!paths.contains(path)) {
+                removed.add(path);
+                iterator.remove();
+            }
+        }
+        return removed;
+    }
+
+    public void save(JsonFactory jsonFactory) throws MojoExecutionException {
+        try {
+            JsonGenerator generator = jsonFactory.createJsonGenerator(manifestFile, JsonEncoding.UTF8);
+            try {
+                generator.writeStartObject();
+                generator.writeStringField("configuration", configuration);
+                generator.writeObjectFieldStart("classes");
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    generator.writeObjectFieldStart(entry.getKey());
+                    generator.writeNumberField("size", entry.getValue().size);
+                    generator.writeNumberField("lastModified", entry.getValue().lastModified);
+                    generator.writeStringField("sha256", entry.getValue().hash);
+                    generator.writeEndObject();
+                }
+                generator.writeEndObject();
+                generator.writeEndObject();
+            } finally {
+                generator.close();
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not write incremental manifest \"" + manifestFile + "\"", e);
+        }
+    }
+
+    static String hash(File file) throws MojoExecutionException {
+        MessageDigest digest = sha256();
+        try {
+            InputStream input = new FileInputStream(file);
+            try {
+                byte[] buffer = new byte[HASH_BUFFER_SIZE];
+                int count;
+                while ((count = input.read(buffer)) >= 0) {
+                    digest.update(buffer, 0, count);
+                }
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not hash \"" + file + "\"", e);
+        }
+        return toHex(digest.digest());
+    }
+
+    static String hash(String text) {
+        try {
+            return toHex(sha256().digest(text.getBytes("UTF-8")));
+        } catch (IOException e) {
+            throw new IllegalStateException("UTF-8 is not available", e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] digits = "0123456789abcdef".toCharArray();
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = digits[(bytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = digits[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    private static class Entry {
+        private long size;
+        private long lastModified;
+        private String hash;
+    }
+
+}
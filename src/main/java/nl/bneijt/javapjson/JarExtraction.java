@@ -0,0 +1,163 @@
+package nl.bneijt.javapjson;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Extracts the classes of JAR files by reading their entries straight from the JAR, without unpacking them. Several
+ * JARs are processed in parallel, the classes of a single JAR are extracted in batches on one thread and written to
+ * the output of that JAR.
+ */
+public class JarExtraction {
+
+    public interface OutputFactory {
+        /**
+         * Creates the output for the JAR with the given name.
+         */
+        OutputWriter create(String name) throws MojoExecutionException;
+    }
+
+    private static final String CLASS_EXTENSION = ".class";
+
+    private final ExtractionEngine engine;
+    private final int threads;
+    private final int batchSize;
+    private final ExecutorService sharedExecutor;
+
+    public JarExtraction(ExtractionEngine engine, int threads, int batchSize) {
+        this(engine, threads, batchSize, null);
+    }
+
+    /**
+     * Creates an extraction that runs on the given executor instead of starting its own threads. The executor is not
+     * shut down.
+     */
+    public JarExtraction(ExtractionEngine engine, int threads, int batchSize, ExecutorService executor) {
+        this.engine = engine;
+        this.threads = threads;
+        this.batchSize = batchSize;
+        this.sharedExecutor = executor;
+    }
+
+    /**
+     * Extracts all classes of the given JARs, keyed by name, and returns the number of extracted classes.
+     */
+    public int run(Map<String, File> jars, final OutputFactory outputFactory) throws MojoExecutionException {
+        if (threads <= 1 || jars.size() <= 1) {
+            int classes = 0;
+            for (Map.Entry<String, File> jar : jars.entrySet()) {
+                classes += extract(jar.getValue(), outputFactory.create(jar.getKey()));
+            }
+            return classes;
+        }
+        ExecutorService executor = sharedExecutor != null
+                ? sharedExecutor
+                : Executors.newFixedThreadPool(Math.min(threads, jars.size()), new ExtractionPipeline.WorkerThreadFactory());
+        List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+        try {
+            for (final Map.Entry<String, File> jar : jars.entrySet()) {
+                results.add(executor.submit(new Callable<Integer>() {
+                    public Integer call() throws MojoExecutionException {
+                        return extract(jar.getValue(), outputFactory.create(jar.getKey()));
+                    }
+                }));
+            }
+            int classes = 0;
+            for (Future<Integer> result : results) {
+                classes += await(result);
+            }
+            return classes;
+        } finally {
+            if (executor != sharedExecutor) {
+                executor.shutdownNow();
+            } else {
+                for (Future<Integer> result : results) {
+                    result.cancel(true);
+                }
+            }
+        }
+    }
+
+    private int extract(File jarFile, OutputWriter output) throws MojoExecutionException {
+        ZipFile jar;
+        try {
+            jar = new ZipFile(jarFile);
+        } catch (IOException e) {
+            output.abort();
+            throw new MojoExecutionException("Could not open JAR \"" + jarFile + "\"", e);
+        }
+        try {
+            boolean complete = false;
+            try {
+                List<ZipEntry> entries = classEntries(jar);
+                for (int start = 0; start < entries.size(); start += batchSize) {
+                    List<ZipEntry> batch = entries.subList(start, Math.min(start + batchSize, entries.size()));
+                    List<JavapLOutput> outputs = engine.extractAll(jar, batch);
+                    for (int i = 0; i < batch.size(); i++) {
+                        output.write(batch.get(i).getName(), outputs.get(i));
+                    }
+                }
+                complete = true;
+                return entries.size();
+            } finally {
+                try {
+                    if (complete) {
+                        output.close();
+                    } else {
+                        output.abort();
+                    }
+                } finally {
+                    jar.close();
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not read JAR \"" + jarFile + "\"", e);
+        }
+    }
+
+    /**
+     * The class entries of the JAR, leaving out module and package descriptors and the versioned classes of
+     * multi-release JARs, which are no regular classes of the JAR.
+     */
+    static List<ZipEntry> classEntries(ZipFile jar) {
+        List<ZipEntry> entries = new ArrayList<ZipEntry>();
+        for (Enumeration<? extends ZipEntry> enumeration = jar.entries(); enumeration.hasMoreElements();) {
+            ZipEntry entry = enumeration.nextElement();
+            String name = entry.getName();
+            if (entry.isDirectory() || !name.endsWith(CLASS_EXTENSION) || name.startsWith("META-INF/")
+                    || name.endsWith("module-info.class") || name.endsWith("package-info.class")) {
+                continue;
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static int await(Future<Integer> future) throws MojoExecutionException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while waiting for JAR extraction", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof MojoExecutionException) {
+                throw (MojoExecutionException) e.getCause();
+            }
+            throw new MojoExecutionException("JAR extraction failed", e.getCause());
+        }
+    }
+
+}
@@ -0,0 +1,163 @@
+package nl.bneijt.javapjson;
+
+import java.io.File;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Runs javap on the class file and parses its textual output with a {@link JavapTextParser}.
+ *
+ * A batch of classes is passed to a single javap invocation by the paths of their class files. Passing class names
+ * on a classpath would not work: javap looks up platform classes first, so a project class like
+ * <code>org.w3c.dom.Node</code> or <code>module-info</code> would print the JDK class instead. The combined output is
+ * parsed class by class while javap is writing it.
+ */
+public class JavapEngine implements ExtractionEngine {
+
+    private final JavapRunner javapRunner;
+    private final JavapTextParser textParser;
+    private final PhaseTimings timings;
+
+    public JavapEngine(JavapRunner javapRunner, JavapTextParser textParser) {
+        this(javapRunner, textParser, null);
+    }
+
+    /**
+     * Creates an engine that records the time of every class. The time the parser waited for javap output counts as
+     * javap time, the rest of its parse time as parse time. Starting and finishing javap is divided evenly over the
+     * classes of the batch as javap time.
+     */
+    public JavapEngine(JavapRunner javapRunner, JavapTextParser textParser, PhaseTimings timings) {
+        this.javapRunner = javapRunner;
+        this.textParser = textParser;
+        this.timings = timings;
+    }
+
+    public JavapLOutput extract(File classFile) throws MojoExecutionException {
+        return extractAll(Collections.singletonList(classFile)).get(0);
+    }
+
+    @Override
+    public List<JavapLOutput> extractAll(List<File> classFiles) throws MojoExecutionException {
+        String[] arguments = new String[classFiles.size() + 1];
+        arguments[0] = "-l";
+        for (int i = 0; i < classFiles.size(); i++) {
+            arguments[i + 1] = classFiles.get(i).getPath();
+        }
+        long[] parseNanos = new long[classFiles.size()];
+        long[] javapNanos = new long[classFiles.size()];
+        long start = System.nanoTime();
+        List<JavapLOutput> outputs = run(arguments, classFiles.size(), classFiles.get(0).getPath(), parseNanos, javapNanos);
+        if (timings != null) {
+            long rest = System.nanoTime() - start;
+            for (int i = 0; i < classFiles.size(); i++) {
+                rest -= parseNanos[i] + javapNanos[i];
+            }
+            for (int i = 0; i < classFiles.size(); i++) {
+                timings.record(PhaseTimings.PARSE, classFiles.get(i), parseNanos[i]);
+                timings.record(PhaseTimings.JAVAP, classFiles.get(i), javapNanos[i] + rest / classFiles.size());
+            }
+        }
+        return outputs;
+    }
+
+    /**
+     * Runs javap on entries of the JAR, passing every entry as a <code>jar:</code> URL so that, like class files,
+     * entries are not looked up by name in the platform classes first.
+     */
+    public List<JavapLOutput> extractAll(ZipFile jar, List<ZipEntry> entries) throws MojoExecutionException {
+        String jarUrl = "jar:" + new File(jar.getName()).toURI() + "!";
+        String[] arguments = new String[entries.size() + 1];
+        arguments[0] = "-l";
+        for (int i = 0; i < entries.size(); i++) {
+            try {
+                arguments[i + 1] = jarUrl + new URI(null, null, "/" + entries.get(i).getName(), null).getRawPath();
+            } catch (URISyntaxException e) {
+                throw new MojoExecutionException("Could not pass entry \"" + entries.get(i).getName() + "\" of \""
+                        + jar.getName() + "\" to javap", e);
+            }
+        }
+        return run(arguments, entries.size(), jar.getName() + "!/" + entries.get(0).getName(), new long[entries.size()],
+                new long[entries.size()]);
+    }
+
+    /**
+     * Runs javap and parses the expected number of classes from its output. For every class it stores the time spent
+     * waiting for javap to write its output, and the rest of the time it took to parse it.
+     */
+    private List<JavapLOutput> run(String[] arguments, int count, String first, long[] parseNanos, long[] javapNanos) throws MojoExecutionException {
+        List<JavapLOutput> outputs = new ArrayList<JavapLOutput>(count);
+        WaitTimingReader javapOutput = new WaitTimingReader(javapRunner.run(arguments));
+        JavapOutputReader reader = new JavapOutputReader(javapOutput);
+        try {
+            try {
+                JavapLOutput output;
+                long parseStart = System.nanoTime();
+                long waitStart = javapOutput.waitNanos;
+                while ((output = textParser.parse(reader)) != null) {
+                    long parseEnd = System.nanoTime();
+                    if (outputs.size() < parseNanos.length) {
+                        long waited = javapOutput.waitNanos - waitStart;
+                        javapNanos[outputs.size()] = waited;
+                        parseNanos[outputs.size()] = parseEnd - parseStart - waited;
+                    }
+                    outputs.add(output);
+                    parseStart = parseEnd;
+                    waitStart = javapOutput.waitNanos;
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not read javap output for a batch starting with \"" + first + "\"", e);
+        }
+        if (outputs.size() != count) {
+            throw new MojoExecutionException("javap printed " + outputs.size() + " classes for a batch of " + count
+                    + " starting with \"" + first + "\"");
+        }
+        return outputs;
+    }
+
+    /**
+     * Adds up the time spent in reads of the javap output. The output is streamed, so that is the time the parser
+     * waited for javap.
+     */
+    private static class WaitTimingReader extends FilterReader {
+        private long waitNanos;
+
+        WaitTimingReader(Reader javapOutput) {
+            super(javapOutput);
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            try {
+                return super.read();
+            } finally {
+                waitNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            long start = System.nanoTime();
+            try {
+                return super.read(buffer, offset, length);
+            } finally {
+                waitNanos += System.nanoTime() - start;
+            }
+        }
+    }
+
+}
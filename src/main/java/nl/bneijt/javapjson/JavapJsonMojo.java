@@ -17,18 +17,23 @@ package nl.bneijt.javapjson;
  */
 
 import java.io.File;
-import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.filefilter.SuffixFileFilter;
-import org.apache.commons.io.filefilter.TrueFileFilter;
+import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 
-import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.core.JsonGenerator;
 
 
 /**
@@ -37,11 +42,16 @@ import com.fasterxml.jackson.core.JsonGenerator;
  * @goal touch
  *
  * @phase process-classes
+ * @requiresDependencyResolution runtime
  */
 public class JavapJsonMojo
     extends AbstractMojo
 {
-    private static final String CLASS_EXTENSION = ".class";
+    private static final String MANIFEST_FILE_NAME = ".javap-json-manifest.json";
+    private static final String STREAM_FILE_NAME = "classes.";
+    private static final String ARCHIVE_FILE_NAME = "classes.pack";
+    private static final String STATS_FILE_NAME = "stats.json";
+    private static final String DEPENDENCIES_DIRECTORY = "dependencies";
 
     /**
      * Target directory
@@ -58,14 +68,224 @@ public class JavapJsonMojo
      */
     private File outputDirectory;
 
+    /**
+     * How to run javap: "toolprovider" runs it inside the Maven JVM, "process" starts an external javap for every class.
+     *
+     * @parameter expression="${javapjson.javapMode}" default-value="toolprovider"
+     * @required
+     */
+    private String javapMode;
+
+    /**
+     * How to extract the information from class files: "javap" parses the output of javap with the parboiled grammar,
+     * "scanner" parses it with a hand written line scanner, "classfile" decodes the class files directly.
+     *
+     * @parameter expression="${javapjson.engine}" default-value="javap"
+     * @required
+     */
+    private String engine;
+
+    /**
+     * Number of classes passed to a single javap invocation. Larger batches share the javap start-up cost over more
+     * classes, the class file engine ignores it.
+     *
+     * @parameter expression="${javapjson.batchSize}" default-value="200"
+     * @required
+     */
+    private int batchSize;
+
+    /**
+     * Number of threads extracting classes in parallel, 0 uses one thread per available processor. Results are
+     * written in the same order and to the same files as with a single thread.
+     *
+     * @parameter expression="${javapjson.threads}" default-value="0"
+     * @required
+     */
+    private int threads;
+
+    /**
+     * How to write the Json: "files" writes a file per class in the same layout as the class files, "ndjson" streams
+     * all classes into a single classes.ndjson file with one class per line, "archive" packs all classes into a
+     * classes.pack file with an index by binary class name, to be read with the PackedArchiveReader.
+     *
+     * @parameter expression="${javapjson.output}" default-value="files"
+     * @required
+     */
+    private String output;
+
+    /**
+     * The format the classes are written in: "json", or "smile" for the binary Smile encoding of the same documents.
+     * The "ndjson" output writes Smile as a single classes.smile stream of documents.
+     *
+     * @parameter expression="${javapjson.format}" default-value="json"
+     * @required
+     */
+    private String format;
+
+    /**
+     * Gzip the "ndjson" output, adding .gz to its file name.
+     *
+     * @parameter expression="${javapjson.compress}" default-value="false"
+     */
+    private boolean compress;
+
+    /**
+     * Also extract the classes of the runtime dependencies, reading them straight from the dependency JARs. Every
+     * dependency gets its own output in javap-json/dependencies/groupId/artifactId-version, several JARs are
+     * processed in parallel. Extracted JARs are kept in the dependencyCache for later builds.
+     *
+     * @parameter expression="${javapjson.dependencies}" default-value="false"
+     */
+    private boolean dependencies;
+
+    /**
+     * Directory of the cache of extracted dependency JARs, shared by all projects that use the same local repository.
+     * A JAR is found in the cache by its SHA-256 hash, so it is only extracted once for every configuration.
+     *
+     * @parameter expression="${javapjson.dependencyCache}" default-value="${settings.localRepository}/.cache/javap-json"
+     */
+    private File dependencyCache;
+
+    /**
+     * Maximum size of the dependency cache in megabytes, the least recently used JARs are removed when it grows
+     * larger. 0 disables the cache.
+     *
+     * @parameter expression="${javapjson.dependencyCacheSize}" default-value="512"
+     */
+    private long dependencyCacheSize;
+
+    /**
+     * Directory of the cache of the Json of single classes, shared by all projects that use the same local repository.
+     * Classes are found by the SHA-256 hash of their class file, so identical classes are extracted only once. Only
+     * used with the "files" output.
+     *
+     * @parameter expression="${javapjson.classCache}" default-value="${settings.localRepository}/.cache/javap-json-classes"
+     */
+    private File classCache;
+
+    /**
+     * Maximum size of the class cache in megabytes, the least recently used classes are removed when it grows larger.
+     * 0 disables the cache.
+     *
+     * @parameter expression="${javapjson.classCacheSize}" default-value="256"
+     */
+    private long classCacheSize;
+
+    /**
+     * The resolved dependencies of the project.
+     *
+     * @parameter expression="${project.artifacts}"
+     * @required
+     * @readonly
+     */
+    private Set<Artifact> projectArtifacts;
+
+    /**
+     * The version of this plugin. Cached output is only reused by the same version, because the Json of a class
+     * changes between versions.
+     *
+     * @parameter default-value="${plugin.version}"
+     * @required
+     * @readonly
+     */
+    private String pluginVersion;
+
+    /**
+     * The projects of the build, to stop the shared workers after the last one.
+     *
+     * @parameter expression="${reactorProjects}"
+     * @required
+     * @readonly
+     */
+    private List<?> reactorProjects;
+
+    /**
+     * The project being built.
+     *
+     * @parameter expression="${project}"
+     * @required
+     * @readonly
+     */
+    private Object project;
+
+    /**
+     * Share the worker threads and the in-process javap between all executions of the plugin in the build, so the
+     * modules after the first one start with warmed up workers. The shared threads stop after the last project of the
+     * build, or after being idle for a while.
+     *
+     * @parameter expression="${javapjson.sharedWorkers}" default-value="true"
+     */
+    private boolean sharedWorkers;
+
+    /**
+     * Comma separated globs of the classes to extract, relative to the build output directory, like
+     * "com/example/**". All classes are extracted when empty.
+     *
+     * @parameter expression="${javapjson.includes}" default-value=""
+     */
+    private String includes;
+
+    /**
+     * Comma separated globs of the classes and directories to leave out, relative to the build output directory, like
+     * "**&#47;generated" or "**&#47;*Test.class". Excluded directories are not walked at all.
+     *
+     * @parameter expression="${javapjson.excludes}" default-value=""
+     */
+    private String excludes;
+
+    /**
+     * Only process classes that are new or changed since the last run, and remove the Json of deleted classes. The
+     * state of the last run is kept in a manifest file in the javap-json directory. The "ndjson" and "archive"
+     * outputs are always written completely, so they ignore this setting.
+     *
+     * @parameter expression="${javapjson.incremental}" default-value="true"
+     */
+    private boolean incremental;
+
     public void execute() throws MojoExecutionException
     {
-        JsonFactory jsonFactory = new JsonFactory();
+        int workerThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        if (!sharedWorkers) {
+            ForkJoinPool memberParsers = workerThreads > 1 ? new ForkJoinPool(workerThreads) : null;
+            try {
+                extract(workerThreads, null, memberParsers);
+            } finally {
+                if (memberParsers != null) {
+                    memberParsers.shutdown();
+                }
+            }
+            return;
+        }
+        SharedWorkers.begin();
+        try {
+            extract(workerThreads, workerThreads > 1 ? SharedWorkers.executor(workerThreads) : null,
+                    workerThreads > 1 ? SharedWorkers.memberParsers(workerThreads) : null);
+        } finally {
+            SharedWorkers.end(!reactorProjects.isEmpty() && reactorProjects.get(reactorProjects.size() - 1).equals(project));
+        }
+    }
+
+    /**
+     * Extracts the classes, on the given executor and fork/join pool when they are not null.
+     */
+    private void extract(int workerThreads, ExecutorService executor, ForkJoinPool memberParsers) throws MojoExecutionException
+    {
+        long runStart = System.nanoTime();
+        final JsonFactory jsonFactory = new JsonFactory();
+        final PhaseTimings timings = new PhaseTimings(outputDirectory);
+        ExtractionEngine extractionEngine = createExtractionEngine(timings, memberParsers);
+        final OutputFormat outputFormat = OutputFormat.forName(format);
+        if (outputFormat == null) {
+            throw new MojoExecutionException("Unknown format \"" + format + "\", use \"json\" or \"smile\"");
+        }
+        if (batchSize < 1) {
+            throw new MojoExecutionException("batchSize should be at least 1, not " + batchSize);
+        }
         if(! outputDirectory.exists()) {
             throw new MojoExecutionException("No build output directory found. Was looking at \"" + outputDirectory + "\"");
         }
 
-        String jsonDirectory = buildDirectory.getPath() + File.separator + "javap-json";
+        final String jsonDirectory = buildDirectory.getPath() + File.separator + "javap-json";
         File jsonDirectoryFile = new File(jsonDirectory);
         if(!jsonDirectoryFile.exists()) {
             if(!jsonDirectoryFile.mkdir()) {
@@ -74,60 +294,291 @@ public class JavapJsonMojo
             getLog().debug("Created output directory \"" + jsonDirectoryFile.getPath() + "\"");
         }
 
-        for (File classFile : FileUtils.listFiles(outputDirectory, new SuffixFileFilter(CLASS_EXTENSION), TrueFileFilter.INSTANCE)) {
-            String output = runJavap(classFile);
-            JavapLOutput parseL = JavapParser.parseL(output);
-
-            File outputFile = new File(jsonDirectory + File.separator + "current.json");
+        final IncrementalManifest manifest = incremental && "files".equals(output)
+                ? IncrementalManifest.load(jsonFactory, new File(jsonDirectory, MANIFEST_FILE_NAME), outputConfiguration())
+                : null;
+        if (manifest != null) {
+            // The configuration changed, so all classes are extracted again: drop the output of the previous one,
+            // including the Json of classes that were deleted since and the files of another format
+            for (String previousPath : manifest.previousConfigurationPaths()) {
+                for (OutputFormat previousFormat : OutputFormat.values()) {
+                    FileUtils.deleteQuietly(PerClassOutputWriter.jsonFileFor(jsonDirectory, previousPath, previousFormat));
+                }
+            }
+        }
+        final ClassCache jsonCache = classCacheSize > 0 && "files".equals(output)
+                ? new ClassCache(classCache, outputConfiguration(), outputFormat, classCacheSize * 1024 * 1024)
+                : null;
+        ClassDiscovery discovery = new ClassDiscovery(outputDirectory, ClassDiscovery.globs(includes), ClassDiscovery.globs(excludes)).start();
+        final SelectedClasses selectedClasses = new SelectedClasses(discovery, manifest, jsonCache, jsonDirectory, outputFormat);
 
+        getLog().debug("Extracting classes using " + workerThreads + (executor != null ? " shared" : "") + " threads");
+        final int[] extracted = new int[1];
+        final OutputWriter outputWriter = createOutputWriter(outputFormat, jsonDirectory);
+        boolean complete = false;
+        try {
+            new ExtractionPipeline(extractionEngine, workerThreads, batchSize, timings, executor).run(selectedClasses, new ExtractionPipeline.ResultHandler() {
+                public void handle(File classFile, JavapLOutput output) throws MojoExecutionException {
+                    String path = relativePath(classFile);
+                    long writeStart = System.nanoTime();
+                    outputWriter.write(path, output);
+                    timings.record(PhaseTimings.WRITE, classFile, System.nanoTime() - writeStart);
+                    String hash = selectedClasses.hashes.remove(classFile);
+                    if (jsonCache != null) {
+                        jsonCache.store(hash, PerClassOutputWriter.jsonFileFor(jsonDirectory, path, outputFormat));
+                    }
+                    if (manifest != null) {
+                        manifest.record(path, classFile, hash);
+                    }
+                    extracted[0]++;
+                }
+            });
+            complete = true;
+            if (manifest != null) {
+                for (String removedPath : manifest.retainOnly(selectedClasses.paths)) {
+                    FileUtils.deleteQuietly(PerClassOutputWriter.jsonFileFor(jsonDirectory, removedPath, outputFormat));
+                }
+                getLog().info("Incremental run: " + selectedClasses.changed + " of " + selectedClasses.found + " classes changed");
+            }
+            if (jsonCache != null) {
+                getLog().info("Class cache: " + selectedClasses.restored + " of " + selectedClasses.changed + " classes restored");
+            }
+        } finally {
+            discovery.close();
+            timings.record(PhaseTimings.DISCOVER, discovery.getWalkNanos() + selectedClasses.selectNanos);
+            timings.record(PhaseTimings.WRITE, selectedClasses.restoreNanos);
             try {
-                JsonGenerator jsonOutput = jsonFactory.createJsonGenerator(outputFile, JsonEncoding.UTF8);
-                parseL.toJsonOnto(jsonOutput);
-
-                //Move file into correct position
-                File classDirectory = classFile.getParentFile();
-                String classFileName = classFile.getName();
-                String restOfDirectory = classDirectory.getPath().substring(outputDirectory.getPath().length());
-                File jsonOutputFileDirectory = new File(jsonDirectory + restOfDirectory);
-                File jsonOutputFile = new File(jsonOutputFileDirectory.getPath() + File.separator + classFileName.substring(0, classFileName.length()  - ".class".length()) + ".json");
-                if(!jsonOutputFileDirectory.exists())
-                    FileUtils.forceMkdir(jsonOutputFileDirectory);
-                if(jsonOutputFile.exists()) {
-                    FileUtils.deleteQuietly(jsonOutputFile);
-                }
-                FileUtils.moveFile(outputFile, jsonOutputFile);
-
-            } catch (IOException e) {
-                // TODO Auto-generated catch block
-                throw new MojoExecutionException("Unable to serialize javap output to Json", e);
+                if (complete) {
+                    outputWriter.close();
+                } else {
+                    outputWriter.abort();
+                }
+            } finally {
+                if (manifest != null) {
+                    manifest.save(jsonFactory);
+                }
+                if (jsonCache != null) {
+                    int evicted = jsonCache.evict();
+                    if (evicted > 0) {
+                        getLog().debug("Removed " + evicted + " least recently used classes from the class cache");
+                    }
+                }
+            }
+        }
+        if (dependencies) {
+            extractDependencies(extractionEngine, outputFormat, jsonDirectory, workerThreads, executor);
+        }
+        long runNanos = System.nanoTime() - runStart;
+        for (String line : timings.summary(extracted[0], runNanos)) {
+            getLog().info(line);
+        }
+        timings.writeJson(jsonFactory, new File(jsonDirectory, STATS_FILE_NAME), extracted[0], runNanos);
+    }
+
+    private void extractDependencies(ExtractionEngine extractionEngine, final OutputFormat outputFormat, final String jsonDirectory, int workerThreads,
+            ExecutorService executor) throws MojoExecutionException {
+        long start = System.nanoTime();
+        Map<String, File> jars = new TreeMap<String, File>();
+        for (Artifact artifact : projectArtifacts) {
+            File file = artifact.getFile();
+            if (file == null || !file.isFile() || !file.getName().endsWith(".jar")) {
+                getLog().debug("Skipping dependency " + artifact.getId() + ", it is not a JAR file");
+                continue;
+            }
+            String name = artifact.getGroupId() + File.separator + artifact.getArtifactId() + "-" + artifact.getVersion();
+            if (artifact.getClassifier() != null) {
+                name += "-" + artifact.getClassifier();
+            }
+            jars.put(name, file);
+        }
+        final ArtifactCache cache = dependencyCacheSize > 0
+                ? new ArtifactCache(dependencyCache, outputConfiguration() + ",output=" + output + ",compress=" + compress,
+                        dependencyCacheSize * 1024 * 1024)
+                : null;
+        final Map<String, String> jarHashes = new TreeMap<String, String>();
+        final Map<String, File> staged = new TreeMap<String, File>();
+        if (cache != null) {
+            int restored = 0;
+            for (Iterator<Map.Entry<String, File>> iterator = jars.entrySet().iterator(); iterator.hasNext();) {
+                Map.Entry<String, File> jar = iterator.next();
+                String hash = IncrementalManifest.hash(jar.getValue());
+                if (cache.restore(hash, dependencyDirectory(jsonDirectory, jar.getKey()))) {
+                    iterator.remove();
+                    restored++;
+                } else {
+                    jarHashes.put(jar.getKey(), hash);
+                }
+            }
+            getLog().info("Restored " + restored + " dependency JARs from the cache in " + dependencyCache);
+        }
+        int classes;
+        try {
+            classes = new JarExtraction(extractionEngine, workerThreads, batchSize, executor).run(jars, new JarExtraction.OutputFactory() {
+                public OutputWriter create(String name) throws MojoExecutionException {
+                    File directory;
+                    if (cache != null) {
+                        directory = cache.stage(jarHashes.get(name));
+                        synchronized (staged) {
+                            staged.put(name, directory);
+                        }
+                    } else {
+                        directory = dependencyDirectory(jsonDirectory, name);
+                        if (!directory.isDirectory() && !directory.mkdirs()) {
+                            throw new MojoExecutionException("Could not create output directory \"" + directory + "\"");
+                        }
+                    }
+                    return createOutputWriter(outputFormat, directory.getPath());
+                }
+            });
+            for (Map.Entry<String, File> stagedJar : staged.entrySet()) {
+                String hash = jarHashes.get(stagedJar.getKey());
+                cache.store(hash, stagedJar.getValue());
+                if (!cache.restore(hash, dependencyDirectory(jsonDirectory, stagedJar.getKey()))) {
+                    throw new MojoExecutionException("Could not find dependency " + stagedJar.getKey() + " in the cache after storing it");
+                }
+            }
+            staged.clear();
+        } finally {
+            if (cache != null) {
+                for (File directory : staged.values()) {
+                    cache.discard(directory);
+                }
+                int evicted = cache.evict();
+                if (evicted > 0) {
+                    getLog().debug("Removed " + evicted + " least recently used JARs from the dependency cache");
+                }
             }
         }
+        getLog().info(String.format(Locale.ROOT, "Extracted %d classes from %d dependency JARs in %.1f ms", classes, jars.size(),
+                (System.nanoTime() - start) / 1000000.0));
+    }
 
+    private static File dependencyDirectory(String jsonDirectory, String name) {
+        return new File(jsonDirectory + File.separator + DEPENDENCIES_DIRECTORY + File.separator + name);
+    }
 
+    /**
+     * The discovered classes that have to be extracted: classes that are up to date according to the incremental
+     * manifest are left out, as are classes whose Json could be restored from the class cache.
+     */
+    private class SelectedClasses implements ExtractionPipeline.ClassSource {
+        private final ClassDiscovery discovery;
+        private final IncrementalManifest manifest;
+        private final ClassCache cache;
+        private final String jsonDirectory;
+        private final OutputFormat outputFormat;
+        /** Paths of all discovered classes. */
+        private final Set<String> paths = new HashSet<String>();
+        /** Hashes of the selected classes that still have to be added to the class cache. */
+        private final Map<File, String> hashes = new HashMap<File, String>();
+        private int found;
+        private int changed;
+        private int restored;
+        private long selectNanos;
+        private long restoreNanos;
+
+        SelectedClasses(ClassDiscovery discovery, IncrementalManifest manifest, ClassCache cache, String jsonDirectory, OutputFormat outputFormat) {
+            this.discovery = discovery;
+            this.manifest = manifest;
+            this.cache = cache;
+            this.jsonDirectory = jsonDirectory;
+            this.outputFormat = outputFormat;
+        }
+
+        public File next() throws MojoExecutionException {
+            for (File classFile = discovery.next(); classFile != null; classFile = discovery.next()) {
+                found++;
+                long start = System.nanoTime();
+                String path = relativePath(classFile);
+                File jsonFile = PerClassOutputWriter.jsonFileFor(jsonDirectory, path, outputFormat);
+                if (manifest != null) {
+                    paths.add(path);
+                    if (manifest.isUpToDate(path, classFile) && jsonFile.exists()) {
+                        selectNanos += System.nanoTime() - start;
+                        continue;
+                    }
+                }
+                changed++;
+                selectNanos += System.nanoTime() - start;
+                if (cache == null) {
+                    return classFile;
+                }
+                start = System.nanoTime();
+                String hash = IncrementalManifest.hash(classFile);
+                boolean hit = cache.restore(hash, jsonFile);
+                if (hit) {
+                    restored++;
+                    if (manifest != null) {
+                        manifest.record(path, classFile, hash);
+                    }
+                } else {
+                    hashes.put(classFile, hash);
+                }
+                restoreNanos += System.nanoTime() - start;
+                if (!hit) {
+                    return classFile;
+                }
+            }
+            return null;
+        }
     }
 
-    private String runJavap(File classFile) throws MojoExecutionException {
-        File classDirectory = classFile.getParentFile();
-        String classFileName = classFile.getName();
-        ProcessBuilder psBuilder = new ProcessBuilder("javap", "-l", classFileName.substring(0, classFileName.length() - CLASS_EXTENSION.length()));
-        psBuilder.directory(classDirectory);
-        Process process;
-        try {
-            process = psBuilder.start();
-        } catch (IOException e1) {
-            throw new MojoExecutionException("Could not start process builder", e1);
+    /**
+     * The path of the class file relative to the output directory, always separated by forward slashes.
+     */
+    private String relativePath(File classFile) {
+        String path = classFile.getPath().substring(outputDirectory.getPath().length());
+        if (path.startsWith(File.separator)) {
+            path = path.substring(1);
         }
-        try {
-            process.getOutputStream().close();
-        } catch (IOException e) {
-            throw new MojoExecutionException("Could not close output stream while executing javap");
+        return path.replace(File.separatorChar, '/');
+    }
+
+    /**
+     * The configuration and plugin version that influence the generated Json, an incremental run starts over and the
+     * caches use other entries when it changes.
+     */
+    private String outputConfiguration() {
+        return "plugin=" + pluginVersion + ",engine=" + engine + ",javapMode=" + javapMode + ",format=" + format;
+    }
+
+    private OutputWriter createOutputWriter(OutputFormat outputFormat, String jsonDirectory) throws MojoExecutionException {
+        if ("files".equals(output)) {
+            return new PerClassOutputWriter(outputFormat, jsonDirectory);
         }
-        try {
-            byte[] buffer = new byte[1024];
-            IOUtils.read(process.getInputStream(), buffer);
-            return new String(buffer);
-        } catch (IOException e) {
-            throw new MojoExecutionException("Could not read all input from command javap while reading \"" + classFile + "\"");
+        if ("ndjson".equals(output)) {
+            String fileName = STREAM_FILE_NAME + (outputFormat.isTextual() ? "ndjson" : outputFormat.getExtension());
+            if (compress) {
+                fileName += ".gz";
+            }
+            return new NdjsonOutputWriter(outputFormat, new File(jsonDirectory, fileName), compress);
+        }
+        if ("archive".equals(output)) {
+            return new PackedArchiveWriter(outputFormat, new File(jsonDirectory, ARCHIVE_FILE_NAME));
+        }
+        throw new MojoExecutionException("Unknown output \"" + output + "\", use \"files\", \"ndjson\" or \"archive\"");
+    }
+
+    private ExtractionEngine createExtractionEngine(PhaseTimings timings, ForkJoinPool memberParsers) throws MojoExecutionException {
+        if ("javap".equals(engine)) {
+            return new JavapEngine(createJavapRunner(), new JavapParser(false, memberParsers), timings);
+        }
+        if ("scanner".equals(engine)) {
+            return new JavapEngine(createJavapRunner(), new JavapLScanner(), timings);
+        }
+        if ("classfile".equals(engine)) {
+            return new ClassFileEngine();
+        }
+        throw new MojoExecutionException("Unknown engine \"" + engine + "\", use \"javap\", \"scanner\" or \"classfile\"");
+    }
+
+    private JavapRunner createJavapRunner() throws MojoExecutionException {
+        if ("toolprovider".equals(javapMode)) {
+            return sharedWorkers ? SharedWorkers.javapRunner() : new ToolProviderJavapRunner();
+        }
+        if ("process".equals(javapMode)) {
+            return new ProcessJavapRunner();
         }
+        throw new MojoExecutionException("Unknown javapMode \"" + javapMode + "\", use \"toolprovider\" or \"process\"");
     }
 }
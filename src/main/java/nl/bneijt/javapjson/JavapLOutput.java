@@ -1,6 +1,8 @@
 package nl.bneijt.javapjson;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.maven.plugin.MojoExecutionException;
 
@@ -9,9 +11,67 @@ import com.fasterxml.jackson.core.JsonGenerator;
 
 public class JavapLOutput {
 
+    private String sourceFile;
+    private final List<String> modifiers = new ArrayList<String>();
+    private String className;
+    private String superClassName;
+    private final List<String> interfaces = new ArrayList<String>();
+    private final List<JavapMember> members = new ArrayList<JavapMember>();
+
+    public String getSourceFile() {
+        return sourceFile;
+    }
+
+    public void setSourceFile(String sourceFile) {
+        this.sourceFile = sourceFile;
+    }
+
+    public List<String> getModifiers() {
+        return modifiers;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public void setClassName(String className) {
+        this.className = className;
+    }
+
+    public String getSuperClassName() {
+        return superClassName;
+    }
+
+    public void setSuperClassName(String superClassName) {
+        this.superClassName = superClassName;
+    }
+
+    public List<String> getInterfaces() {
+        return interfaces;
+    }
+
+    public List<JavapMember> getMembers() {
+        return members;
+    }
+
     public void toJsonOnto(JsonGenerator jsonOutput) throws MojoExecutionException {
         try {
-            jsonOutput.writeString("TODO");
+            jsonOutput.writeStartObject();
+            if (sourceFile != null) {
+                jsonOutput.writeStringField("sourceFile", sourceFile);
+            }
+            writeStringArray(jsonOutput, "modifiers", modifiers);
+            jsonOutput.writeStringField("className", className);
+            if (superClassName != null) {
+                jsonOutput.writeStringField("superClassName", superClassName);
+            }
+            writeStringArray(jsonOutput, "interfaces", interfaces);
+            jsonOutput.writeArrayFieldStart("members");
+            for (JavapMember member : members) {
+                member.toJsonOnto(jsonOutput);
+            }
+            jsonOutput.writeEndArray();
+            jsonOutput.writeEndObject();
         } catch (JsonGenerationException e) {
             throw new MojoExecutionException("Could not serialize to Json", e);
         } catch (IOException e) {
@@ -19,4 +79,12 @@ public class JavapLOutput {
         }
     }
 
+    static void writeStringArray(JsonGenerator jsonOutput, String fieldName, List<String> values) throws IOException {
+        jsonOutput.writeArrayFieldStart(fieldName);
+        for (String value : values) {
+            jsonOutput.writeString(value);
+        }
+        jsonOutput.writeEndArray();
+    }
+
 }
@@ -0,0 +1,103 @@
+package nl.bneijt.javapjson;
+
+import java.util.ArrayList;
+
+/**
+ * Collects the pieces of javap text in the order they are printed and turns them into a {@link JavapLOutput} with
+ * the same conventions as {@link ClassFileReader}: type parameters are left out of the class name, a class without
+ * <code>extends</code> extends <code>java.lang.Object</code>, and constructors and static initializers get their JVM
+ * names.
+ */
+class JavapLOutputBuilder {
+
+    private static final String OBJECT = "java.lang.Object";
+
+    private final JavapLOutput output = new JavapLOutput();
+    private JavapMember member;
+
+    void sourceFile(String quotedSourceFile) {
+        output.setSourceFile(quotedSourceFile.substring(1, quotedSourceFile.length() - 1));
+    }
+
+    void classModifier(String modifier) {
+        output.getModifiers().add(modifier);
+    }
+
+    void classKind(String kind) {
+        output.getModifiers().add(kind);
+    }
+
+    void className(String className) {
+        int typeParameters = className.indexOf('<');
+        output.setClassName(typeParameters < 0 ? className : className.substring(0, typeParameters));
+    }
+
+    void superClassName(String superClassName) {
+        output.setSuperClassName(superClassName);
+    }
+
+    void interfaceName(String interfaceName) {
+        output.getInterfaces().add(interfaceName);
+    }
+
+    void startMember() {
+        member = new JavapMember();
+    }
+
+    void memberModifier(String modifier) {
+        member.getModifiers().add(modifier);
+    }
+
+    void staticInitializer() {
+        member.getModifiers().add("static");
+        member.setName("<clinit>");
+        member.setParameters(new ArrayList<String>(0));
+    }
+
+    void memberType(String type) {
+        member.setType(type);
+    }
+
+    void memberName(String name) {
+        if (name.equals(output.getClassName())) {
+            member.setName("<init>");
+        } else {
+            member.setName(name);
+        }
+    }
+
+    void startParameters() {
+        member.setParameters(new ArrayList<String>());
+    }
+
+    void parameter(String type) {
+        member.getParameters().add(type);
+    }
+
+    void exception(String type) {
+        member.getExceptions().add(type);
+    }
+
+    void lineNumber(int line, int start) {
+        member.getLineNumberTable().add(line, start);
+    }
+
+    void localVariable(int start, int length, int slot, String name, String signature) {
+        member.getLocalVariableTable().add(start, length, slot, name, signature);
+    }
+
+    void endMember() {
+        output.getMembers().add(member);
+        member = null;
+    }
+
+    JavapLOutput build() {
+        // javap only prints extends for classes with a superclass other than Object, interfaces list their
+        // superinterfaces after extends
+        if (output.getSuperClassName() == null && !OBJECT.equals(output.getClassName())) {
+            output.setSuperClassName(OBJECT);
+        }
+        return output;
+    }
+
+}
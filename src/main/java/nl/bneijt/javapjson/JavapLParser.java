@@ -1,90 +1,320 @@
 package nl.bneijt.javapjson;
 
+import org.parboiled.BaseParser;
 import org.parboiled.Rule;
 import org.parboiled.annotations.BuildParseTree;
-import org.parboiled.annotations.MemoMismatches;
+import org.parboiled.annotations.SuppressNode;
 import org.parboiled.annotations.SuppressSubnodes;
-import org.parboiled.examples.java.JavaParser;
+import org.parboiled.examples.java.JavaCharacterRunMatcher;
+import org.parboiled.examples.java.JavaLetterMatcher;
+import org.parboiled.examples.java.JavaLetterOrDigitMatcher;
 
+/**
+ * Grammar for the output of <code>javap -l</code>, both the column 0 layout of older JDKs and the indented layout
+ * of current ones.
+ *
+ * Besides the rule for a complete class, there are rules for the header and for a single member so the output can be
+ * parsed one block at a time.
+ *
+ * The grammar stands on its own and only has the few Java token rules it needs, parboiled instruments every rule
+ * method of the parser class hierarchy when it generates the parser.
+ */
 @SuppressWarnings({"InfiniteRecursion"})
 @BuildParseTree
-public class JavapLParser extends JavaParser  {
+public class JavapLParser extends BaseParser<Object> {
 
     final Rule NEWLINE = FirstOf("\r\n", '\r', '\n');
 
     public Rule JavapLOutput() {
         return Sequence(
-                "Compiled from ", StringLiteral(), NEWLINE,
-                JavapLClassDeclaration(), "{", NEWLINE,
-                OneOrMore(JavapInterfaceDeclaration()));
+                JavapLHeader(),
+                ZeroOrMore(JavapLMember()),
+                JavapLFooter(),
+                EOI);
     }
 
-    public Rule JavapInterfaceDeclaration() {
+    public Rule JavapLHeaderBlock() {
+        return Sequence(JavapLHeader(), EOI);
+    }
+
+    public Rule JavapLMemberBlock() {
+        return Sequence(JavapLMember(), EOI);
+    }
+
+    public Rule JavapLHeader() {
+        return Sequence(
+                ZeroOrMore(BlankLine()),
+                Optional("Compiled from ", SourceFile(), NEWLINE),
+                JavapLClassDeclaration(), LineSpacing(), "{", LineSpacing(), NEWLINE);
+    }
+
+    @SuppressSubnodes
+    public Rule SourceFile() {
+        return StringLiteral();
+    }
+
+    public Rule JavapLFooter() {
+        return Sequence(ZeroOrMore(BlankLine()), "}", LineSpacing(), Optional(NEWLINE), ZeroOrMore(BlankLine()));
+    }
+
+    public Rule JavapLClassDeclaration() {
         return Sequence(
-            ZeroOrMore(Member()),
-            ZeroOrMore(NEWLINE),
-            Modifier(), JavapQualifiedIdentifier(), "();", NEWLINE
-            ,LineNumberTable()
-            ,LocalVariableTable()
-            );
+                ZeroOrMore(JavapModifier()),
+                FirstOf(
+                        Sequence(ClassKind(), ' ', ClassName(),
+                                Optional(" extends ", SuperClassName()),
+                                Optional(" implements ", InterfaceList())),
+                        Sequence(InterfaceKind(), ' ', ClassName(),
+                                Optional(" extends ", InterfaceList())))
+        );
+    }
+
+    @SuppressSubnodes
+    public Rule ClassKind() {
+        return String("class");
+    }
+
+    @SuppressSubnodes
+    public Rule InterfaceKind() {
+        return String("interface");
+    }
+
+    @SuppressSubnodes
+    public Rule ClassName() {
+        return JavapType();
+    }
+
+    @SuppressSubnodes
+    public Rule SuperClassName() {
+        return JavapType();
+    }
+
+    /**
+     * javap separates the interfaces with a comma and a space when it prints them from the generic signature of the
+     * class, and with only a comma otherwise.
+     */
+    public Rule InterfaceList() {
+        return Sequence(InterfaceName(), ZeroOrMore(',', Optional(' '), InterfaceName()));
+    }
+
+    @SuppressSubnodes
+    public Rule InterfaceName() {
+        return JavapType();
+    }
+
+    public Rule JavapLMember() {
+        return Sequence(
+                ZeroOrMore(BlankLine()),
+                Indent(), JavapMemberDeclaration(), ';', LineSpacing(), NEWLINE,
+                Optional(LineNumberTable()),
+                Optional(LocalVariableTable()),
+                ZeroOrMore(BlankLine()));
+    }
+
+    public Rule JavapMemberDeclaration() {
+        return FirstOf(
+                StaticInitializer(),
+                Sequence(
+                        ZeroOrMore(JavapModifier()),
+                        Optional(MemberTypeParameters(), ' '),
+                        FirstOf(
+                                Sequence(MemberType(), ' ', MemberName(), Parameters(), Optional(Throws())),
+                                Sequence(MemberType(), ' ', MemberName()),
+                                Sequence(MemberName(), Parameters(), Optional(Throws())))));
+    }
+
+    @SuppressSubnodes
+    public Rule StaticInitializer() {
+        return Sequence("static", LineSpacing(), "{}");
+    }
+
+    @SuppressSubnodes
+    public Rule JavapModifier() {
+        return Sequence(
+                FirstOf("public", "protected", "private", "static", "final", "synchronized", "volatile",
+                        "transient", "native", "abstract", "strictfp", "default"),
+                ' ');
+    }
+
+    @SuppressSubnodes
+    public Rule MemberTypeParameters() {
+        return TypeArguments();
+    }
+
+    @SuppressSubnodes
+    public Rule MemberType() {
+        return JavapType();
+    }
+
+    @SuppressSubnodes
+    public Rule MemberName() {
+        return JavapQualifiedIdentifier();
+    }
+
+    public Rule Parameters() {
+        return Sequence('(', Optional(Parameter(), ZeroOrMore(", ", Parameter())), ')');
+    }
+
+    @SuppressSubnodes
+    public Rule Parameter() {
+        return JavapType();
+    }
+
+    public Rule Throws() {
+        return Sequence(OneOrMore(' '), "throws ", ExceptionName(), ZeroOrMore(", ", ExceptionName()));
+    }
+
+    @SuppressSubnodes
+    public Rule ExceptionName() {
+        return FirstOf(InternalClassName(), JavapType());
+    }
+
+    /**
+     * A class name with slashes, which javap prints for thrown types that come from a generic signature.
+     */
+    public Rule InternalClassName() {
+        return Sequence(JavapName(), OneOrMore('/', JavapName()));
+    }
+
+    public Rule JavapType() {
+        return Sequence(
+                JavapName(), Optional(TypeArguments()),
+                ZeroOrMore('.', JavapName(), Optional(TypeArguments())),
+                ZeroOrMore("[]"),
+                Optional("..."));
+    }
+
+    public Rule TypeArguments() {
+        return Sequence('<', TypeArgument(), ZeroOrMore(", ", TypeArgument()), '>');
+    }
+
+    public Rule TypeArgument() {
+        return Sequence(
+                FirstOf('?', JavapType()),
+                Optional(' ', FirstOf("extends ", "super "), JavapType(), ZeroOrMore(" & ", JavapType())));
     }
 
     public Rule JavapQualifiedIdentifier() {
-        return Sequence(JavapIdentifier(), ZeroOrMore(DOT, JavapIdentifier()));
+        return Sequence(JavapName(), ZeroOrMore('.', JavapName()));
     }
 
+    /**
+     * A Java identifier, or the name <code>package-info</code> of a package descriptor. Mismatches are not memoized:
+     * the memo lives in the rule and survives between runs, so a reused parser would fail where the previous input had
+     * no letter or digit.
+     */
     @SuppressSubnodes
-    @MemoMismatches
-    public Rule JavapIdentifier() {
-        return Sequence(TestNot(Keyword()), Letter(), ZeroOrMore(LetterOrDigit()), ZeroOrMore(MangelPattern()), Spacing());
+    public Rule JavapName() {
+        return FirstOf(
+                Sequence("package-info", TestNot(JavapNamePart())),
+                Sequence(Letter(), ZeroOrMore(JavapNamePart())));
     }
 
-    public Rule MangelPattern() {
-        return Sequence("$", IntegerLiteral());
+    /**
+     * A run of letters and digits, matched at once, or a Unicode escape.
+     */
+    public Rule JavapNamePart() {
+        return FirstOf(Sequence('\\', UnicodeEscape()),
+                new JavaCharacterRunMatcher("LetterOrDigits", new JavaLetterOrDigitMatcher()));
     }
 
-    public Rule Member() {
-        return Sequence(Modifier(), JavapQualifiedIdentifier(), VariableDeclarator(), ";", NEWLINE);
+    public Rule LineNumberTable() {
+        return Sequence(
+                ZeroOrMore(BlankLine()),
+                Indent(), "LineNumberTable:", LineSpacing(), NEWLINE,
+                OneOrMore(LineNumberTableRow()));
+    }
+
+    public Rule LineNumberTableRow() {
+        return Sequence(Indent(), "line ", Number(), ": ", Number(), LineSpacing(), NEWLINE);
     }
 
     public Rule LocalVariableTable() {
-        return Sequence("  LocalVariableTable: ", NEWLINE,
-                "   Start  Length  Slot  Name   Signature", NEWLINE
-                ,OneOrMore(LocalVariableTableRow()), NEWLINE);
+        return Sequence(
+                ZeroOrMore(BlankLine()),
+                Indent(), "LocalVariableTable:", LineSpacing(), NEWLINE,
+                Indent(), "Start", Spaces(), "Length", Spaces(), "Slot", Spaces(), "Name", Spaces(), "Signature", LineSpacing(), NEWLINE,
+                // Empty for code that declares no variables, some compilers still write the attribute
+                ZeroOrMore(LocalVariableTableRow()));
     }
+
     public Rule LocalVariableTableRow() {
-        return Sequence(WhiteSpace(), IntegerLiteral(), WhiteSpace(), IntegerLiteral(), WhiteSpace(), IntegerLiteral(), WhiteSpace(), "this", WhiteSpace(), LinkReferencePath(), ";", NEWLINE);
+        return Sequence(
+                Indent(), Number(), Spaces(), Number(), Spaces(), Number(), Spaces(),
+                VariableName(), Spaces(), VariableSignature(), LineSpacing(), NEWLINE);
     }
 
-    public Rule LinkReferencePath() {
-        return Sequence("L", OneOrMore(NoneOf(";\n")));
+    @SuppressSubnodes
+    public Rule VariableName() {
+        return JavapName();
     }
-    public Rule WhiteSpace() {
-        return OneOrMore(AnyOf(" \n\r\t"));
+
+    @SuppressSubnodes
+    public Rule VariableSignature() {
+        return OneOrMore(NoneOf(" \t\r\n"));
     }
 
-    public Rule LineNumberTable() {
-        return Sequence("  LineNumberTable: ", NEWLINE,
-            OneOrMore(LineNumberTableRow()), NEWLINE);
+    @SuppressSubnodes
+    public Rule Number() {
+        return OneOrMore(Digit());
     }
-    public Rule LineNumberTableRow() {
-        return Sequence("   line ", IntegerLiteral(), ": ", IntegerLiteral(), NEWLINE);
+
+    @SuppressNode
+    public Rule BlankLine() {
+        return Sequence(LineSpacing(), NEWLINE);
     }
 
-    public Rule JavapLClassDeclaration() {
+    @SuppressNode
+    public Rule Indent() {
+        return ZeroOrMore(' ');
+    }
+
+    @SuppressNode
+    public Rule Spaces() {
+        return OneOrMore(' ');
+    }
+
+    @SuppressNode
+    public Rule LineSpacing() {
+        return ZeroOrMore(AnyOf(" \t"));
+    }
+
+    //-------------------------------------------------------------------------
+    //  Java tokens, JLS 3.3, 3.8 and 3.10
+    //-------------------------------------------------------------------------
+
+    public Rule Letter() {
+        return FirstOf(Sequence('\\', UnicodeEscape()), new JavaLetterMatcher());
+    }
+
+    public Rule Digit() {
+        return CharRange('0', '9');
+    }
+
+    public Rule HexDigit() {
+        return FirstOf(CharRange('a', 'f'), CharRange('A', 'F'), CharRange('0', '9'));
+    }
+
+    public Rule StringLiteral() {
         return Sequence(
-                ZeroOrMore(Modifier()),
-                CLASS,
-                JavapQualifiedIdentifier(),
-                Optional(TypeParameters()),
-                Optional(EXTENDS, JavapQualifiedIdentifier()),
-                Optional(IMPLEMENTS, QualifiedTypeList())
-        );
+                '"',
+                ZeroOrMore(FirstOf(Escape(), Sequence(TestNot(AnyOf("\r\n\"\\")), ANY))).suppressSubnodes(),
+                '"');
     }
 
-    public Rule QualifiedTypeList() {
-        return Sequence(JavapQualifiedIdentifier(), ZeroOrMore(COMMA, JavapQualifiedIdentifier()));
+    public Rule Escape() {
+        return Sequence('\\', FirstOf(AnyOf("btnfr\"\'\\"), OctalEscape(), UnicodeEscape()));
     }
 
+    public Rule OctalEscape() {
+        return FirstOf(
+                Sequence(CharRange('0', '3'), CharRange('0', '7'), CharRange('0', '7')),
+                Sequence(CharRange('0', '7'), CharRange('0', '7')),
+                CharRange('0', '7'));
+    }
+
+    public Rule UnicodeEscape() {
+        return Sequence(OneOrMore('u'), HexDigit(), HexDigit(), HexDigit(), HexDigit());
+    }
 
 }
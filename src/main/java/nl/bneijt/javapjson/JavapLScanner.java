@@ -0,0 +1,299 @@
+package nl.bneijt.javapjson;
+
+import java.io.IOException;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Hand written alternative to the {@link JavapLParser} grammar. javap output is strictly line oriented, so every
+ * block is scanned once from left to right without backtracking, and only the values that end up in the
+ * {@link JavapLOutput} are turned into strings.
+ */
+public class JavapLScanner implements JavapTextParser {
+
+    private static final String COMPILED_FROM = "Compiled from ";
+    private static final String[] MODIFIERS = { "public", "protected", "private", "static", "final", "synchronized",
+            "volatile", "transient", "native", "abstract", "strictfp", "default" };
+
+    public JavapLOutput parse(JavapOutputReader reader) throws IOException, MojoExecutionException {
+        String header = reader.nextHeader();
+        if (header == null) {
+            return null;
+        }
+        Scan scan = new Scan();
+        JavapLOutputBuilder builder = new JavapLOutputBuilder();
+        scan.header(header, builder);
+        String member;
+        while ((member = reader.nextMember()) != null) {
+            builder.startMember();
+            scan.member(member, builder);
+            builder.endMember();
+        }
+        return builder.build();
+    }
+
+    /**
+     * The position in the block being scanned, one per parse so a scanner can be shared between threads.
+     */
+    private static class Scan {
+
+        private String text;
+        private int index;
+        private int end;
+
+        void header(String header, JavapLOutputBuilder builder) throws MojoExecutionException {
+            start(header);
+            skipBlankLines();
+            if (header.startsWith(COMPILED_FROM, index)) {
+                index += COMPILED_FROM.length();
+                int lineEnd = lineEnd();
+                builder.sourceFile(text.substring(index, lineEnd).trim());
+                nextLine(lineEnd);
+            }
+            String modifier;
+            while ((modifier = modifier()) != null) {
+                builder.classModifier(modifier);
+            }
+            boolean isInterface;
+            if (skip("class ")) {
+                builder.classKind("class");
+                isInterface = false;
+            } else if (skip("interface ")) {
+                builder.classKind("interface");
+                isInterface = true;
+            } else {
+                throw error("Expected class or interface");
+            }
+            builder.className(type());
+            if (skip(" extends ")) {
+                if (isInterface) {
+                    interfaceList(builder);
+                } else {
+                    builder.superClassName(type());
+                }
+            }
+            if (!isInterface && skip(" implements ")) {
+                interfaceList(builder);
+            }
+            skipSpaces();
+            if (!skip("{")) {
+                throw error("Expected {");
+            }
+        }
+
+        private void interfaceList(JavapLOutputBuilder builder) throws MojoExecutionException {
+            builder.interfaceName(type());
+            // Only a comma when javap prints the interfaces without a generic signature
+            while (skip(",")) {
+                skip(" ");
+                builder.interfaceName(type());
+            }
+        }
+
+        void member(String member, JavapLOutputBuilder builder) throws MojoExecutionException {
+            start(member);
+            skipBlankLines();
+            skipSpaces();
+            if (skip("static {}")) {
+                builder.staticInitializer();
+            } else {
+                String modifier;
+                while ((modifier = modifier()) != null) {
+                    builder.memberModifier(modifier);
+                }
+                if (index < end && text.charAt(index) == '<') {
+                    type(); // Method type parameters
+                    if (!skip(" ")) {
+                        throw error("Expected space after type parameters");
+                    }
+                }
+                String typeOrName = type();
+                if (index < end && text.charAt(index) == '(') {
+                    builder.memberName(typeOrName);
+                    parameters(builder);
+                } else if (skip(" ")) {
+                    builder.memberType(typeOrName);
+                    builder.memberName(type());
+                    if (index < end && text.charAt(index) == '(') {
+                        parameters(builder);
+                    }
+                } else {
+                    throw error("Expected member name");
+                }
+            }
+            if (!skip(";")) {
+                throw error("Expected ;");
+            }
+            nextLine(lineEnd());
+            scanTables(builder);
+        }
+
+        private void parameters(JavapLOutputBuilder builder) throws MojoExecutionException {
+            builder.startParameters();
+            index++; // (
+            if (!skip(")")) {
+                builder.parameter(type());
+                while (skip(", ")) {
+                    builder.parameter(type());
+                }
+                if (!skip(")")) {
+                    throw error("Expected )");
+                }
+            }
+            int mark = index;
+            skipSpaces();
+            if (skip("throws ")) {
+                builder.exception(type());
+                while (skip(", ")) {
+                    builder.exception(type());
+                }
+            } else {
+                index = mark;
+            }
+        }
+
+        private void scanTables(JavapLOutputBuilder builder) throws MojoExecutionException {
+            boolean localVariables = false;
+            while (index < end) {
+                int lineEnd = lineEnd();
+                skipSpaces();
+                if (index == lineEnd) {
+                    // Blank line
+                } else if (skip("line ")) {
+                    int line = number();
+                    if (!skip(": ")) {
+                        throw error("Expected :");
+                    }
+                    builder.lineNumber(line, number());
+                } else if (skip("LineNumberTable:")) {
+                    localVariables = false;
+                } else if (skip("LocalVariableTable:")) {
+                    localVariables = true;
+                    nextLine(lineEnd);
+                    lineEnd = lineEnd(); // Column headers
+                } else if (localVariables) {
+                    int start = number();
+                    skipSpaces();
+                    int length = number();
+                    skipSpaces();
+                    int slot = number();
+                    skipSpaces();
+                    String name = word();
+                    skipSpaces();
+                    builder.localVariable(start, length, slot, name, word());
+                } else {
+                    throw error("Unexpected line in member tables");
+                }
+                nextLine(lineEnd);
+            }
+        }
+
+        /**
+         * Reads a type up to the first space, comma, parenthesis or semicolon outside of its type arguments.
+         */
+        private String type() throws MojoExecutionException {
+            int start = index;
+            int depth = 0;
+            while (index < end) {
+                char c = text.charAt(index);
+                if (c == '<') {
+                    depth++;
+                } else if (c == '>') {
+                    depth--;
+                } else if (depth == 0 && (c == ' ' || c == ',' || c == '(' || c == ')' || c == ';' || c == '{' || c == '\n' || c == '\r')) {
+                    break;
+                }
+                index++;
+            }
+            if (index == start) {
+                throw error("Expected a type");
+            }
+            return text.substring(start, index);
+        }
+
+        private String modifier() {
+            for (String modifier : MODIFIERS) {
+                int length = modifier.length();
+                if (text.startsWith(modifier, index) && index + length < end && text.charAt(index + length) == ' ') {
+                    index += length + 1;
+                    return modifier;
+                }
+            }
+            return null;
+        }
+
+        private String word() throws MojoExecutionException {
+            int start = index;
+            while (index < end && !Character.isWhitespace(text.charAt(index))) {
+                index++;
+            }
+            if (index == start) {
+                throw error("Expected a word");
+            }
+            return text.substring(start, index);
+        }
+
+        private int number() throws MojoExecutionException {
+            int value = 0;
+            int start = index;
+            while (index < end) {
+                char c = text.charAt(index);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                value = value * 10 + (c - '0');
+                index++;
+            }
+            if (index == start) {
+                throw error("Expected a number");
+            }
+            return value;
+        }
+
+        private void start(String block) {
+            text = block;
+            index = 0;
+            end = block.length();
+        }
+
+        private boolean skip(String expected) {
+            if (text.startsWith(expected, index)) {
+                index += expected.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void skipSpaces() {
+            while (index < end && (text.charAt(index) == ' ' || text.charAt(index) == '\t')) {
+                index++;
+            }
+        }
+
+        private void skipBlankLines() {
+            int lineStart = index;
+            skipSpaces();
+            while (index < end && (text.charAt(index) == '\n' || text.charAt(index) == '\r')) {
+                index++;
+                lineStart = index;
+                skipSpaces();
+            }
+            index = lineStart;
+        }
+
+        private int lineEnd() {
+            int lineEnd = text.indexOf('\n', index);
+            return lineEnd < 0 ? end : lineEnd;
+        }
+
+        private void nextLine(int lineEnd) {
+            index = Math.min(lineEnd + 1, end);
+        }
+
+        private MojoExecutionException error(String message) {
+            int lineStart = text.lastIndexOf('\n', index - 1) + 1;
+            return new MojoExecutionException(message + " at column " + (index - lineStart + 1) + " of javap output:\n" + text);
+        }
+    }
+
+}
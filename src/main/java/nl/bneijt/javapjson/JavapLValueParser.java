@@ -0,0 +1,182 @@
+package nl.bneijt.javapjson;
+
+import org.parboiled.Rule;
+import org.parboiled.annotations.SuppressNode;
+
+/**
+ * The javap grammar with actions that push the values of a block onto the value stack, in input order, instead of
+ * building a parse tree. The block rules suppress their node, which suppresses the nodes of all rules below them, so
+ * parsing creates no tree at all.
+ *
+ * Parboiled restores the value stack when a sequence fails, so the values of alternatives that did not match are
+ * gone by the time a block matched.
+ *
+ * Parboiled does not turn the expressions of an overriding rule method into actions when the method calls the rule
+ * it overrides, so the overrides repeat the rules of {@link JavapLParser} instead of calling super.
+ */
+@SuppressWarnings({"InfiniteRecursion"})
+public class JavapLValueParser extends JavapLParser {
+
+    enum Kind {
+        SOURCE_FILE, MODIFIER, CLASS_KIND, CLASS_NAME, SUPER_CLASS_NAME, INTERFACE_NAME, STATIC_INITIALIZER,
+        MEMBER_TYPE, MEMBER_NAME, PARAMETERS, PARAMETER, EXCEPTION_NAME, NUMBER, VARIABLE_NAME, VARIABLE_SIGNATURE,
+        LINE_NUMBER, LOCAL_VARIABLE
+    }
+
+    /**
+     * A typed value of the javap output. Table rows carry their numbers, a local variable row also its name and
+     * signature.
+     */
+    static final class Value {
+        final Kind kind;
+        final String text;
+        final String signature;
+        final int first;
+        final int second;
+        final int third;
+
+        Value(Kind kind, String text) {
+            this(kind, text, null, 0, 0, 0);
+        }
+
+        Value(Kind kind, String text, String signature, int first, int second, int third) {
+            this.kind = kind;
+            this.text = text;
+            this.signature = signature;
+            this.first = first;
+            this.second = second;
+            this.third = third;
+        }
+    }
+
+    @SuppressNode
+    public Rule JavapLHeaderValues() {
+        return JavapLHeaderBlock();
+    }
+
+    @SuppressNode
+    public Rule JavapLMemberValues() {
+        return JavapLMemberBlock();
+    }
+
+    @Override
+    public Rule SourceFile() {
+        return Sequence(StringLiteral(), ACTION(push(new Value(Kind.SOURCE_FILE, match()))));
+    }
+
+    @Override
+    public Rule JavapModifier() {
+        return Sequence(
+                FirstOf("public", "protected", "private", "static", "final", "synchronized", "volatile",
+                        "transient", "native", "abstract", "strictfp", "default"),
+                ACTION(push(new Value(Kind.MODIFIER, match()))),
+                ' ');
+    }
+
+    @Override
+    public Rule ClassKind() {
+        return Sequence(String("class"), ACTION(push(new Value(Kind.CLASS_KIND, "class"))));
+    }
+
+    @Override
+    public Rule InterfaceKind() {
+        return Sequence(String("interface"), ACTION(push(new Value(Kind.CLASS_KIND, "interface"))));
+    }
+
+    @Override
+    public Rule ClassName() {
+        return Sequence(JavapType(), ACTION(push(new Value(Kind.CLASS_NAME, match()))));
+    }
+
+    @Override
+    public Rule SuperClassName() {
+        return Sequence(JavapType(), ACTION(push(new Value(Kind.SUPER_CLASS_NAME, match()))));
+    }
+
+    @Override
+    public Rule InterfaceName() {
+        return Sequence(JavapType(), ACTION(push(new Value(Kind.INTERFACE_NAME, match()))));
+    }
+
+    @Override
+    public Rule StaticInitializer() {
+        return Sequence(Sequence("static", LineSpacing(), "{}"), ACTION(push(new Value(Kind.STATIC_INITIALIZER, null))));
+    }
+
+    @Override
+    public Rule MemberType() {
+        return Sequence(JavapType(), ACTION(push(new Value(Kind.MEMBER_TYPE, match()))));
+    }
+
+    @Override
+    public Rule MemberName() {
+        return Sequence(JavapQualifiedIdentifier(), ACTION(push(new Value(Kind.MEMBER_NAME, match()))));
+    }
+
+    @Override
+    public Rule Parameters() {
+        return Sequence(
+                '(', ACTION(push(new Value(Kind.PARAMETERS, null))),
+                Optional(Parameter(), ZeroOrMore(", ", Parameter())), ')');
+    }
+
+    @Override
+    public Rule Parameter() {
+        return Sequence(JavapType(), ACTION(push(new Value(Kind.PARAMETER, match()))));
+    }
+
+    @Override
+    public Rule ExceptionName() {
+        return Sequence(FirstOf(InternalClassName(), JavapType()), ACTION(push(new Value(Kind.EXCEPTION_NAME, match()))));
+    }
+
+    @Override
+    public Rule LineNumberTableRow() {
+        return Sequence(
+                Indent(), "line ", Number(), ": ", Number(), LineSpacing(), NEWLINE,
+                ACTION(pushLineNumber()));
+    }
+
+    @Override
+    public Rule LocalVariableTableRow() {
+        return Sequence(
+                Indent(), Number(), Spaces(), Number(), Spaces(), Number(), Spaces(),
+                VariableName(), Spaces(), VariableSignature(), LineSpacing(), NEWLINE,
+                ACTION(pushLocalVariable()));
+    }
+
+    @Override
+    public Rule VariableName() {
+        return Sequence(JavapName(), ACTION(push(new Value(Kind.VARIABLE_NAME, match()))));
+    }
+
+    @Override
+    public Rule VariableSignature() {
+        return Sequence(OneOrMore(NoneOf(" \t\r\n")), ACTION(push(new Value(Kind.VARIABLE_SIGNATURE, match()))));
+    }
+
+    @Override
+    public Rule Number() {
+        return Sequence(OneOrMore(Digit()), ACTION(push(new Value(Kind.NUMBER, match()))));
+    }
+
+    boolean pushLineNumber() {
+        int start = number(pop());
+        int line = number(pop());
+        return push(new Value(Kind.LINE_NUMBER, null, null, line, start, 0));
+    }
+
+    boolean pushLocalVariable() {
+        String signature = ((Value) pop()).text;
+        String name = ((Value) pop()).text;
+        int slot = number(pop());
+        int length = number(pop());
+        int start = number(pop());
+        return push(new Value(Kind.LOCAL_VARIABLE, name, signature, start, length, slot));
+    }
+
+    private static int number(Object value) {
+        return Integer.parseInt(((Value) value).text);
+    }
+
+}
@@ -0,0 +1,100 @@
+package nl.bneijt.javapjson;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * A field or method as listed by javap. Fields have no parameter list, constructors and static
+ * initializers use their JVM names <code>&lt;init&gt;</code> and <code>&lt;clinit&gt;</code> and have no type.
+ */
+public class JavapMember {
+
+    private final List<String> modifiers = new ArrayList<String>();
+    private String type;
+    private String name;
+    private List<String> parameters;
+    private final List<String> exceptions = new ArrayList<String>();
+    private final LineNumberTable lineNumberTable = new LineNumberTable();
+    private final LocalVariableTable localVariableTable = new LocalVariableTable();
+
+    public List<String> getModifiers() {
+        return modifiers;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public boolean isMethod() {
+        return parameters != null;
+    }
+
+    public List<String> getParameters() {
+        return parameters;
+    }
+
+    public void setParameters(List<String> parameters) {
+        this.parameters = parameters;
+    }
+
+    public List<String> getExceptions() {
+        return exceptions;
+    }
+
+    public LineNumberTable getLineNumberTable() {
+        return lineNumberTable;
+    }
+
+    public LocalVariableTable getLocalVariableTable() {
+        return localVariableTable;
+    }
+
+    void toJsonOnto(JsonGenerator jsonOutput) throws IOException {
+        jsonOutput.writeStartObject();
+        JavapLOutput.writeStringArray(jsonOutput, "modifiers", modifiers);
+        if (type != null) {
+            jsonOutput.writeStringField("type", type);
+        }
+        jsonOutput.writeStringField("name", name);
+        if (parameters != null) {
+            JavapLOutput.writeStringArray(jsonOutput, "parameters", parameters);
+            JavapLOutput.writeStringArray(jsonOutput, "exceptions", exceptions);
+            jsonOutput.writeArrayFieldStart("lineNumberTable");
+            for (int row = 0; row < lineNumberTable.size(); row++) {
+                jsonOutput.writeStartObject();
+                jsonOutput.writeNumberField("line", lineNumberTable.getLine(row));
+                jsonOutput.writeNumberField("start", lineNumberTable.getStart(row));
+                jsonOutput.writeEndObject();
+            }
+            jsonOutput.writeEndArray();
+            jsonOutput.writeArrayFieldStart("localVariableTable");
+            for (int row = 0; row < localVariableTable.size(); row++) {
+                jsonOutput.writeStartObject();
+                jsonOutput.writeNumberField("start", localVariableTable.getStart(row));
+                jsonOutput.writeNumberField("length", localVariableTable.getLength(row));
+                jsonOutput.writeNumberField("slot", localVariableTable.getSlot(row));
+                jsonOutput.writeStringField("name", localVariableTable.getName(row));
+                jsonOutput.writeStringField("signature", localVariableTable.getSignature(row));
+                jsonOutput.writeEndObject();
+            }
+            jsonOutput.writeEndArray();
+        }
+        jsonOutput.writeEndObject();
+    }
+
+}
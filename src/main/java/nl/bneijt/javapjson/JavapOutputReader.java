@@ -0,0 +1,94 @@
+package nl.bneijt.javapjson;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads javap output one block at a time: the header of a class up to its opening brace, then every member with its
+ * tables, then the closing brace. Only one block is held in memory, so very large classes and batches of many classes
+ * can be parsed while javap is still writing them.
+ */
+public class JavapOutputReader implements Closeable {
+
+    private final BufferedReader reader;
+    private final StringBuilder block = new StringBuilder();
+    private String lookahead;
+
+    public JavapOutputReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    /**
+     * Returns the header of the next class, including the line with the opening brace, or null at the end of the
+     * output.
+     */
+    public String nextHeader() throws IOException {
+        block.setLength(0);
+        String line;
+        while ((line = nextLine()) != null) {
+            if (block.length() == 0 && line.trim().isEmpty()) {
+                continue;
+            }
+            block.append(line).append('\n');
+            if (line.trim().endsWith("{")) {
+                return block.toString();
+            }
+        }
+        if (block.length() > 0) {
+            throw new IOException("Unexpected end of javap output in class header: " + block);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the next member declaration with its tables, or null after the closing brace of the current class has
+     * been read.
+     */
+    public String nextMember() throws IOException {
+        block.setLength(0);
+        String line;
+        while ((line = nextLine()) != null) {
+            String trimmed = line.trim();
+            if (trimmed.equals("}")) {
+                if (block.length() > 0) {
+                    lookahead = line;
+                    return block.toString();
+                }
+                return null;
+            }
+            if (isDeclaration(trimmed) && block.length() > 0) {
+                lookahead = line;
+                return block.toString();
+            }
+            if (block.length() == 0 && trimmed.isEmpty()) {
+                continue;
+            }
+            block.append(line).append('\n');
+        }
+        throw new IOException("Unexpected end of javap output, missing closing brace");
+    }
+
+    /**
+     * Member declarations end with a semicolon, the only table rows that do are local variable rows and those start
+     * with a digit.
+     */
+    private static boolean isDeclaration(String trimmed) {
+        return trimmed.endsWith(";") && !Character.isDigit(trimmed.charAt(0));
+    }
+
+    private String nextLine() throws IOException {
+        if (lookahead != null) {
+            String line = lookahead;
+            lookahead = null;
+            return line;
+        }
+        return reader.readLine();
+    }
+
+    public void close() throws IOException {
+        reader.close();
+    }
+
+}
@@ -1,20 +1,385 @@
 package nl.bneijt.javapjson;
 
-import org.parboiled.Parboiled;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.parboiled.Node;
+import org.parboiled.Rule;
+import org.parboiled.buffers.InputBuffer;
 import org.parboiled.parserunners.BasicParseRunner;
+import org.parboiled.support.ParseTreeUtils;
 import org.parboiled.support.ParsingResult;
+import org.parboiled.support.ValueStack;
+
+/**
+ * Parses javap output with the parboiled {@link JavapLParser} grammar. By default the {@link JavapLValueParser}
+ * actions push the values of every block onto the value stack and no parse tree is built, the parse tree mode builds
+ * the {@link JavapLOutput} from the parse tree instead.
+ */
+public class JavapParser implements JavapTextParser {
+
+    /**
+     * Classes with at least this many members have their members parsed in parallel, in chunks of at most
+     * {@link #MEMBER_CHUNK} members so memory use stays bounded, split into tasks of {@link #MEMBERS_PER_TASK}.
+     */
+    static final int PARALLEL_MEMBERS = 128;
+    static final int MEMBER_CHUNK = 1024;
+    static final int MEMBERS_PER_TASK = 32;
+
+    private final boolean parseTree;
+    private final ForkJoinPool memberParsers;
+
+    /**
+     * Creates a parser that collects the values of the value stack.
+     */
+    public JavapParser() {
+        this(false);
+    }
+
+    /**
+     * @param parseTree build a parse tree and collect the values from it
+     */
+    public JavapParser(boolean parseTree) {
+        this(parseTree, null);
+    }
+
+    /**
+     * @param parseTree build a parse tree and collect the values from it
+     * @param memberParsers the pool to parse the members of huge classes on when collecting values, or null to parse
+     *        all members in order
+     */
+    public JavapParser(boolean parseTree, ForkJoinPool memberParsers) {
+        this.parseTree = parseTree;
+        this.memberParsers = memberParsers;
+    }
+
+    /**
+     * The parser class is generated at build time, or once per JVM when it is missing. The generated class is loaded
+     * when this holder is first used.
+     */
+    private static class PrototypeHolder {
+        private static final JavapLParser PROTOTYPE = ParserClasses.create(JavapLParser.class);
+    }
+
+    private static class ValuePrototypeHolder {
+        private static final JavapLValueParser PROTOTYPE = ParserClasses.create(JavapLValueParser.class);
+    }
 
-public class JavapParser {
+    /**
+     * Parser instances build and cache their rules lazily and are not safe to share between threads, so every thread
+     * gets its own cheap copy of the prototype.
+     */
+    private static final ThreadLocal<Rules> RULES = new ThreadLocal<Rules>() {
+        @Override
+        protected Rules initialValue() {
+            JavapLParser parser = PrototypeHolder.PROTOTYPE.newInstance();
+            return new Rules(parser);
+        }
+    };
+
+    private static final ThreadLocal<ValueRules> VALUE_RULES = new ThreadLocal<ValueRules>() {
+        @Override
+        protected ValueRules initialValue() {
+            return new ValueRules(ValuePrototypeHolder.PROTOTYPE.newInstance());
+        }
+    };
+
+    private static class Rules {
+        private final Rule output;
+        private final Rule header;
+        private final Rule member;
+
+        Rules(JavapLParser parser) {
+            output = parser.JavapLOutput();
+            header = parser.JavapLHeaderBlock();
+            member = parser.JavapLMemberBlock();
+        }
+    }
+
+    private static class ValueRules {
+        private final Rule header;
+        private final Rule member;
+        private final JavapLValueParser.Value[] values = new JavapLValueParser.Value[64];
+
+        ValueRules(JavapLValueParser parser) {
+            header = parser.JavapLHeaderValues();
+            member = parser.JavapLMemberValues();
+        }
+    }
+
+    static Rule rootRule() {
+        return RULES.get().output;
+    }
+
+    public JavapLOutput parse(JavapOutputReader reader) throws IOException, MojoExecutionException {
+        return parseTree ? parseL(reader) : parseValues(reader, memberParsers);
+    }
 
     public static JavapLOutput parseL(String input) {
+        try {
+            return parseL(new JavapOutputReader(new StringReader(input)));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Incomplete javap output", e);
+        } catch (MojoExecutionException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parses the next class from the reader one block at a time, or returns null when there are no more classes.
+     */
+    public static JavapLOutput parseL(JavapOutputReader reader) throws IOException, MojoExecutionException {
+        Rules rules = RULES.get();
+        String header = reader.nextHeader();
+        if (header == null) {
+            return null;
+        }
+        JavapLOutputBuilder builder = new JavapLOutputBuilder();
+        ParsingResult<?> result = run(rules.header, header);
+        collect(result.parseTreeRoot, result.inputBuffer, builder, false);
+        String member;
+        while ((member = reader.nextMember()) != null) {
+            result = run(rules.member, member);
+            builder.startMember();
+            collect(result.parseTreeRoot, result.inputBuffer, builder, true);
+            builder.endMember();
+        }
+        return builder.build();
+    }
 
-        JavapLParser parser = Parboiled.createParser(JavapLParser.class);
-        ParsingResult<?> result = new BasicParseRunner(parser.JavapLOutput()).run(input);
-        System.out.println(result.parseTreeRoot);
+    /**
+     * Parses the next class from the reader one block at a time without building parse trees, or returns null when
+     * there are no more classes.
+     */
+    public static JavapLOutput parseValues(JavapOutputReader reader) throws IOException, MojoExecutionException {
+        return parseValues(reader, null);
+    }
+
+    /**
+     * Like {@link #parseValues(JavapOutputReader)}, but the members of a class with many members, like a generated
+     * parser, are parsed on the given fork/join pool and collected in their order, so one huge class does not keep a
+     * single thread busy for the whole build.
+     */
+    static JavapLOutput parseValues(JavapOutputReader reader, ForkJoinPool memberParsers) throws IOException, MojoExecutionException {
+        ValueRules rules = VALUE_RULES.get();
+        String header = reader.nextHeader();
+        if (header == null) {
+            return null;
+        }
+        JavapLOutputBuilder builder = new JavapLOutputBuilder();
+        collect(run(rules.header, header).valueStack, rules, builder, false);
+        List<String> members = new ArrayList<String>();
+        String member;
+        while ((member = reader.nextMember()) != null) {
+            members.add(member);
+            if (members.size() == MEMBER_CHUNK) {
+                collectMembers(members, rules, builder, memberParsers);
+                members.clear();
+            }
+        }
+        collectMembers(members, rules, builder, memberParsers);
+        return builder.build();
+    }
+
+    private static void collectMembers(List<String> members, ValueRules rules, JavapLOutputBuilder builder, ForkJoinPool memberParsers) throws MojoExecutionException {
+        ValueStack<?>[] values = new ValueStack<?>[members.size()];
+        if (memberParsers == null || members.size() < PARALLEL_MEMBERS) {
+            for (int i = 0; i < members.size(); i++) {
+                values[i] = run(rules.member, members.get(i)).valueStack;
+            }
+        } else {
+            MemberTask task = new MemberTask(members, values, 0, members.size(), new AtomicReference<MojoExecutionException>());
+            memberParsers.invoke(task);
+            if (task.failure.get() != null) {
+                throw task.failure.get();
+            }
+        }
+        for (ValueStack<?> memberValues : values) {
+            builder.startMember();
+            collect(memberValues, rules, builder, true);
+            builder.endMember();
+        }
+    }
 
+    /**
+     * Parses a range of members into their value stacks, with the parser rules of the worker thread. The first parse
+     * failure stops the tasks that have not started yet.
+     */
+    private static class MemberTask extends RecursiveAction {
+        private final List<String> members;
+        private final ValueStack<?>[] values;
+        private final int start;
+        private final int end;
+        private final AtomicReference<MojoExecutionException> failure;
 
-        return new JavapLOutput();
+        MemberTask(List<String> members, ValueStack<?>[] values, int start, int end, AtomicReference<MojoExecutionException> failure) {
+            this.members = members;
+            this.values = values;
+            this.start = start;
+            this.end = end;
+            this.failure = failure;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > MEMBERS_PER_TASK) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new MemberTask(members, values, start, middle, failure),
+                        new MemberTask(members, values, middle, end, failure));
+                return;
+            }
+            Rule member = VALUE_RULES.get().member;
+            for (int i = start; i < end && failure.get() == null; i++) {
+                try {
+                    values[i] = run(member, members.get(i)).valueStack;
+                } catch (MojoExecutionException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        }
+    }
+
+    private static ParsingResult<?> run(Rule rule, String block) throws MojoExecutionException {
+        ParsingResult<?> result = new BasicParseRunner<Object>(rule).run(block);
+        if (!result.matched) {
+            throw new MojoExecutionException("Could not parse javap output:\n" + block);
+        }
+        return result;
+    }
+
+    /**
+     * Walks the parse tree in input order and hands every labelled value to the builder.
+     */
+    private static void collect(Node<?> node, InputBuffer inputBuffer, JavapLOutputBuilder builder, boolean inMember) {
+        String label = node.getLabel();
+        if ("SourceFile".equals(label)) {
+            builder.sourceFile(text(node, inputBuffer));
+        } else if ("JavapModifier".equals(label)) {
+            String modifier = text(node, inputBuffer).trim();
+            if (inMember) {
+                builder.memberModifier(modifier);
+            } else {
+                builder.classModifier(modifier);
+            }
+        } else if ("ClassKind".equals(label) || "InterfaceKind".equals(label)) {
+            builder.classKind(text(node, inputBuffer));
+        } else if ("ClassName".equals(label)) {
+            builder.className(text(node, inputBuffer));
+        } else if ("SuperClassName".equals(label)) {
+            builder.superClassName(text(node, inputBuffer));
+        } else if ("InterfaceName".equals(label)) {
+            builder.interfaceName(text(node, inputBuffer));
+        } else if ("StaticInitializer".equals(label)) {
+            builder.staticInitializer();
+        } else if ("MemberType".equals(label)) {
+            builder.memberType(text(node, inputBuffer));
+        } else if ("MemberName".equals(label)) {
+            builder.memberName(text(node, inputBuffer));
+        } else if ("Parameters".equals(label)) {
+            builder.startParameters();
+        } else if ("Parameter".equals(label)) {
+            builder.parameter(text(node, inputBuffer));
+        } else if ("ExceptionName".equals(label)) {
+            builder.exception(text(node, inputBuffer));
+        } else if ("LineNumberTableRow".equals(label)) {
+            builder.lineNumber(number(node, 0, inputBuffer), number(node, 1, inputBuffer));
+            return;
+        } else if ("LocalVariableTableRow".equals(label)) {
+            builder.localVariable(number(node, 0, inputBuffer), number(node, 1, inputBuffer), number(node, 2, inputBuffer),
+                    text(ParseTreeUtils.findNodeByLabel(node, "VariableName"), inputBuffer),
+                    text(ParseTreeUtils.findNodeByLabel(node, "VariableSignature"), inputBuffer));
+            return;
+        }
+        for (Node<?> child : node.getChildren()) {
+            collect(child, inputBuffer, builder, inMember);
+        }
+    }
+
+    /**
+     * Hands the values to the builder in input order. The value stack iterates from the top, the last value pushed.
+     */
+    private static void collect(ValueStack<?> valueStack, ValueRules rules, JavapLOutputBuilder builder, boolean inMember) {
+        JavapLValueParser.Value[] values = valueStack.size() <= rules.values.length
+                ? rules.values
+                : new JavapLValueParser.Value[valueStack.size()];
+        int count = 0;
+        for (Object value : valueStack) {
+            values[count++] = (JavapLValueParser.Value) value;
+        }
+        for (int i = count - 1; i >= 0; i--) {
+            JavapLValueParser.Value value = values[i];
+            values[i] = null;
+            switch (value.kind) {
+            case SOURCE_FILE:
+                builder.sourceFile(value.text);
+                break;
+            case MODIFIER:
+                if (inMember) {
+                    builder.memberModifier(value.text);
+                } else {
+                    builder.classModifier(value.text);
+                }
+                break;
+            case CLASS_KIND:
+                builder.classKind(value.text);
+                break;
+            case CLASS_NAME:
+                builder.className(value.text);
+                break;
+            case SUPER_CLASS_NAME:
+                builder.superClassName(value.text);
+                break;
+            case INTERFACE_NAME:
+                builder.interfaceName(value.text);
+                break;
+            case STATIC_INITIALIZER:
+                builder.staticInitializer();
+                break;
+            case MEMBER_TYPE:
+                builder.memberType(value.text);
+                break;
+            case MEMBER_NAME:
+                builder.memberName(value.text);
+                break;
+            case PARAMETERS:
+                builder.startParameters();
+                break;
+            case PARAMETER:
+                builder.parameter(value.text);
+                break;
+            case EXCEPTION_NAME:
+                builder.exception(value.text);
+                break;
+            case LINE_NUMBER:
+                builder.lineNumber(value.first, value.second);
+                break;
+            case LOCAL_VARIABLE:
+                builder.localVariable(value.first, value.second, value.third, value.text, value.signature);
+                break;
+            default:
+                throw new IllegalStateException("Unexpected " + value.kind + " on the value stack");
+            }
+        }
+    }
+
+    private static int number(Node<?> row, int index, InputBuffer inputBuffer) {
+        int found = 0;
+        for (Node<?> child : row.getChildren()) {
+            if ("Number".equals(child.getLabel()) && found++ == index) {
+                return Integer.parseInt(text(child, inputBuffer));
+            }
+        }
+        throw new IllegalStateException("Row has no number " + index);
+    }
 
+    private static String text(Node<?> node, InputBuffer inputBuffer) {
+        return ParseTreeUtils.getNodeText(node, inputBuffer);
     }
 
 }
@@ -0,0 +1,15 @@
+package nl.bneijt.javapjson;
+
+import java.io.Reader;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Runs the javap tool and returns what it prints on standard output. Closing the returned reader waits for javap to
+ * finish and fails with an {@link java.io.IOException} when javap did not succeed.
+ */
+public interface JavapRunner {
+
+    Reader run(String... arguments) throws MojoExecutionException;
+
+}
@@ -0,0 +1,17 @@
+package nl.bneijt.javapjson;
+
+import java.io.IOException;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Parses the text javap prints for one class into a {@link JavapLOutput}.
+ */
+public interface JavapTextParser {
+
+    /**
+     * Parses the next class from the reader, or returns null when there are no more classes.
+     */
+    JavapLOutput parse(JavapOutputReader reader) throws IOException, MojoExecutionException;
+
+}
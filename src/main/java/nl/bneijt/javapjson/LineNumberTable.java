@@ -0,0 +1,60 @@
+package nl.bneijt.javapjson;
+
+import java.util.Arrays;
+
+/**
+ * The <code>LineNumberTable</code> of a method, stored as two parallel arrays of source lines and bytecode offsets
+ * so a row costs eight bytes instead of an object.
+ */
+public class LineNumberTable {
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] lines = EMPTY;
+    private int[] starts = EMPTY;
+    private int size;
+
+    public void add(int line, int start) {
+        if (size == lines.length) {
+            ensureCapacity(Math.max(4, size * 2));
+        }
+        lines[size] = line;
+        starts[size] = start;
+        size++;
+    }
+
+    /**
+     * Makes room for the given number of rows, for callers that know the size of the table up front.
+     */
+    public void ensureCapacity(int rows) {
+        if (rows > lines.length) {
+            lines = Arrays.copyOf(lines, rows);
+            starts = Arrays.copyOf(starts, rows);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getLine(int row) {
+        checkRow(row);
+        return lines[row];
+    }
+
+    public int getStart(int row) {
+        checkRow(row);
+        return starts[row];
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package nl.bneijt.javapjson;
+
+import java.util.Arrays;
+
+/**
+ * The <code>LocalVariableTable</code> of a method, stored per column. Start, length and slot are kept in int
+ * arrays, names and signatures are interned because the same few (<code>this</code>, <code>args</code>, common
+ * types) repeat across all methods.
+ */
+public class LocalVariableTable {
+
+    private static final int[] NO_INTS = new int[0];
+    private static final String[] NO_STRINGS = new String[0];
+
+    private int[] starts = NO_INTS;
+    private int[] lengths = NO_INTS;
+    private int[] slots = NO_INTS;
+    private String[] names = NO_STRINGS;
+    private String[] signatures = NO_STRINGS;
+    private int size;
+
+    public void add(int start, int length, int slot, String name, String signature) {
+        if (size == starts.length) {
+            ensureCapacity(Math.max(4, size * 2));
+        }
+        starts[size] = start;
+        lengths[size] = length;
+        slots[size] = slot;
+        names[size] = name.intern();
+        signatures[size] = signature.intern();
+        size++;
+    }
+
+    /**
+     * Makes room for the given number of rows, for callers that know the size of the table up front.
+     */
+    public void ensureCapacity(int rows) {
+        if (rows > starts.length) {
+            starts = Arrays.copyOf(starts, rows);
+            lengths = Arrays.copyOf(lengths, rows);
+            slots = Arrays.copyOf(slots, rows);
+            names = Arrays.copyOf(names, rows);
+            signatures = Arrays.copyOf(signatures, rows);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getStart(int row) {
+        checkRow(row);
+        return starts[row];
+    }
+
+    public int getLength(int row) {
+        checkRow(row);
+        return lengths[row];
+    }
+
+    public int getSlot(int row) {
+        checkRow(row);
+        return slots[row];
+    }
+
+    public String getName(int row) {
+        checkRow(row);
+        return names[row];
+    }
+
+    public String getSignature(int row) {
+        checkRow(row);
+        return signatures[row];
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+    }
+
+}
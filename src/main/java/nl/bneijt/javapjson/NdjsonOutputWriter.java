@@ -0,0 +1,89 @@
+package nl.bneijt.javapjson;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+
+/**
+ * Streams all classes through a single generator into one file, optionally gzip compressed. Json is written one
+ * class per line, binary formats as a sequence of root level documents.
+ *
+ * The classes are written to a temporary file next to the file, which is renamed over it when the writer is closed,
+ * so a failed run leaves the file of the last successful run in place.
+ */
+public class NdjsonOutputWriter implements OutputWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private final File temporaryFile;
+    private final boolean textual;
+    private final JsonGenerator generator;
+
+    public NdjsonOutputWriter(OutputFormat format, File file, boolean compress) throws MojoExecutionException {
+        this.file = file;
+        this.temporaryFile = new File(file.getParentFile(), "." + file.getName() + "." + UUID.randomUUID() + ".tmp");
+        this.textual = format.isTextual();
+        JsonFactory jsonFactory = format.createFactory();
+        try {
+            OutputStream stream = new FileOutputStream(temporaryFile);
+            try {
+                stream = compress
+                        ? new GZIPOutputStream(stream, BUFFER_SIZE)
+                        : new BufferedOutputStream(stream, BUFFER_SIZE);
+                generator = jsonFactory.createJsonGenerator(stream, JsonEncoding.UTF8);
+            } catch (IOException e) {
+                stream.close();
+                temporaryFile.delete();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not create \"" + temporaryFile + "\"", e);
+        }
+        if (textual) {
+            generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+        }
+    }
+
+    public void write(String relativeClassPath, JavapLOutput output) throws MojoExecutionException {
+        output.toJsonOnto(generator);
+    }
+
+    public void close() throws MojoExecutionException {
+        try {
+            try {
+                if (textual && generator.getOutputContext().getEntryCount() > 0) {
+                    generator.writeRaw('\n');
+                }
+                generator.close();
+                PerClassOutputWriter.move(temporaryFile, file);
+            } finally {
+                Files.deleteIfExists(temporaryFile.toPath());
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not write \"" + file + "\"", e);
+        }
+    }
+
+    public void abort() {
+        try {
+            generator.close();
+        } catch (IOException e) {
+            // The output is thrown away
+        }
+        temporaryFile.delete();
+    }
+
+}
@@ -0,0 +1,64 @@
+package nl.bneijt.javapjson;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * The Jackson backend the extracted classes are written with. All formats share the document structure of
+ * {@link JavapLOutput#toJsonOnto}, the binary ones are smaller and faster to decode.
+ */
+public enum OutputFormat {
+
+    JSON("json", true) {
+        @Override
+        public JsonFactory createFactory() {
+            return new JsonFactory();
+        }
+    },
+    SMILE("smile", false) {
+        @Override
+        public JsonFactory createFactory() {
+            return new SmileFactory();
+        }
+    };
+
+    private final String extension;
+    private final boolean textual;
+
+    private OutputFormat(String extension, boolean textual) {
+        this.extension = extension;
+        this.textual = textual;
+    }
+
+    /**
+     * Creates the factory, which only supports the stream based generator and parser methods.
+     */
+    public abstract JsonFactory createFactory();
+
+    /**
+     * The file name extension of documents in this format, without the dot.
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Whether documents are text, so a stream of documents can be separated by newlines.
+     */
+    public boolean isTextual() {
+        return textual;
+    }
+
+    /**
+     * Finds the format by its name as used in the plugin configuration, or returns null.
+     */
+    public static OutputFormat forName(String name) {
+        for (OutputFormat format : values()) {
+            if (format.extension.equals(name)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,27 @@
+package nl.bneijt.javapjson;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Writes the Json of the extracted classes. Classes are written one at a time, in the order they were found, from
+ * a single thread.
+ */
+public interface OutputWriter {
+
+    /**
+     * Writes a class, identified by the path of its class file relative to the classes directory.
+     */
+    void write(String relativeClassPath, JavapLOutput output) throws MojoExecutionException;
+
+    /**
+     * Finishes the output after all classes were written.
+     */
+    void close() throws MojoExecutionException;
+
+    /**
+     * Throws away what was written when the extraction failed, called instead of {@link #close()}. Output of an
+     * earlier run is left as it was.
+     */
+    void abort();
+
+}
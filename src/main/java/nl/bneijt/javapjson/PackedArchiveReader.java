@@ -0,0 +1,166 @@
+package nl.bneijt.javapjson;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * Reads an archive written by {@link PackedArchiveWriter}. The archive is memory mapped and a class is found by a
+ * binary search over the index, so nothing is read or decoded besides the requested record.
+ *
+ * Layout, all numbers big endian:
+ * <pre>
+ * header   magic "JPJA", u2 version, u1 format name length, format name ("json" or "smile")
+ * records  one document per class, back to back
+ * names    the UTF-8 binary class names of the index, back to back
+ * index    per class in unsigned byte order of its name: int name offset, int name length, long record offset,
+ *          int record length
+ * trailer  long offset of the names, long offset of the index, int number of classes, magic "JPJA"
+ * </pre>
+ *
+ * Binary class names use slashes, for example <code>nl/bneijt/javapjson/JavapLParser</code>. Offsets are stored as
+ * longs, but archives are limited to 2 GB because they are mapped into a single buffer.
+ */
+public class PackedArchiveReader implements Closeable {
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final OutputFormat format;
+    private final JsonFactory jsonFactory;
+    private final int namesOffset;
+    private final int entriesOffset;
+    private final int count;
+
+    public PackedArchiveReader(File archive) throws IOException {
+        file = new RandomAccessFile(archive, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            if (channel.size() >= PackedArchiveWriter.MAX_SIZE) {
+                throw new IOException("javap-json archives of 2 GB and larger are not supported: " + archive);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < PackedArchiveWriter.TRAILER_SIZE + 7 || buffer.getInt(0) != PackedArchiveWriter.MAGIC
+                    || buffer.getInt(buffer.capacity() - 4) != PackedArchiveWriter.MAGIC) {
+                throw new IOException("Not a javap-json archive: " + archive);
+            }
+            int version = buffer.getShort(4) & 0xFFFF;
+            if (version != PackedArchiveWriter.VERSION) {
+                throw new IOException("Unsupported javap-json archive version " + version + ": " + archive);
+            }
+            byte[] formatName = new byte[buffer.get(6) & 0xFF];
+            ByteBuffer header = buffer.duplicate();
+            header.position(7);
+            header.get(formatName);
+            format = OutputFormat.forName(new String(formatName, PackedArchiveWriter.UTF8));
+            if (format == null) {
+                throw new IOException("Unknown format in javap-json archive: " + archive);
+            }
+            jsonFactory = format.createFactory();
+            int trailer = buffer.capacity() - PackedArchiveWriter.TRAILER_SIZE;
+            namesOffset = (int) buffer.getLong(trailer);
+            entriesOffset = (int) buffer.getLong(trailer + 8);
+            count = buffer.getInt(trailer + 16);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    public OutputFormat getFormat() {
+        return format;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns the binary names of all classes in the archive, in index order.
+     */
+    public List<String> names() {
+        List<String> names = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(new String(name(i), PackedArchiveWriter.UTF8));
+        }
+        return names;
+    }
+
+    /**
+     * Returns a read only view of the record of the class, or null when the archive does not contain it.
+     */
+    public ByteBuffer find(String binaryName) {
+        byte[] name = binaryName.getBytes(PackedArchiveWriter.UTF8);
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareName(middle, name);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                int entry = entriesOffset + middle * PackedArchiveWriter.ENTRY_SIZE;
+                ByteBuffer record = buffer.duplicate();
+                record.position((int) buffer.getLong(entry + 8));
+                record.limit(record.position() + buffer.getInt(entry + 16));
+                return record.slice();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a parser positioned before the document of the class, or null when the archive does not contain it.
+     */
+    public JsonParser openParser(String binaryName) throws IOException {
+        ByteBuffer record = find(binaryName);
+        if (record == null) {
+            return null;
+        }
+        byte[] bytes = new byte[record.remaining()];
+        record.get(bytes);
+        return jsonFactory.createJsonParser(bytes);
+    }
+
+    /**
+     * Compares the name of an index entry in place with the given name, in the order of
+     * {@link PackedArchiveWriter#compareNames}.
+     */
+    private int compareName(int index, byte[] name) {
+        int entry = entriesOffset + index * PackedArchiveWriter.ENTRY_SIZE;
+        int offset = namesOffset + buffer.getInt(entry);
+        int length = buffer.getInt(entry + 4);
+        int common = Math.min(length, name.length);
+        for (int i = 0; i < common; i++) {
+            int difference = (buffer.get(offset + i) & 0xFF) - (name[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - name.length;
+    }
+
+    private byte[] name(int index) {
+        int entry = entriesOffset + index * PackedArchiveWriter.ENTRY_SIZE;
+        byte[] name = new byte[buffer.getInt(entry + 4)];
+        ByteBuffer names = buffer.duplicate();
+        names.position(namesOffset + buffer.getInt(entry));
+        names.get(name);
+        return name;
+    }
+
+    public void close() throws IOException {
+        file.close();
+    }
+
+}
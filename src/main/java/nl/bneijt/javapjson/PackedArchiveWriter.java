@@ -0,0 +1,178 @@
+package nl.bneijt.javapjson;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes all classes into a single archive that can be searched by binary class name without reading it
+ * completely. See {@link PackedArchiveReader} for the layout.
+ *
+ * The archive is written to a temporary file next to the file, which is renamed over it when the writer is closed,
+ * so a failed run leaves the archive of the last successful run in place. The reader maps the archive into a single
+ * buffer, so archives of {@link #MAX_SIZE} bytes and more are refused.
+ */
+public class PackedArchiveWriter implements OutputWriter {
+
+    static final int MAGIC = 0x4A504A41; // JPJA
+    static final int VERSION = 1;
+    static final int ENTRY_SIZE = 20;
+    static final int TRAILER_SIZE = 24;
+    static final Charset UTF8 = Charset.forName("UTF-8");
+    static final long MAX_SIZE = Integer.MAX_VALUE;
+
+    private static final String CLASS_EXTENSION = ".class";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private final File temporaryFile;
+    private final JsonFactory jsonFactory;
+    private final DataOutputStream output;
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+    private final List<Entry> entries = new ArrayList<Entry>();
+    private long offset;
+
+    public PackedArchiveWriter(OutputFormat format, File file) throws MojoExecutionException {
+        this.file = file;
+        this.temporaryFile = new File(file.getParentFile(), "." + file.getName() + "." + UUID.randomUUID() + ".tmp");
+        this.jsonFactory = format.createFactory();
+        try {
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile), BUFFER_SIZE));
+            byte[] formatName = format.getExtension().getBytes(UTF8);
+            output.writeInt(MAGIC);
+            output.writeShort(VERSION);
+            output.writeByte(formatName.length);
+            output.write(formatName);
+        } catch (IOException e) {
+            abort();
+            throw new MojoExecutionException("Could not create \"" + temporaryFile + "\"", e);
+        }
+        offset = output.size();
+    }
+
+    public void write(String relativeClassPath, JavapLOutput parseL) throws MojoExecutionException {
+        record.reset();
+        try {
+            JsonGenerator generator = jsonFactory.createJsonGenerator(record, JsonEncoding.UTF8);
+            parseL.toJsonOnto(generator);
+            generator.close();
+            record.writeTo(output);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not write \"" + relativeClassPath + "\" to \"" + file + "\"", e);
+        }
+        String binaryName = relativeClassPath.substring(0, relativeClassPath.length() - CLASS_EXTENSION.length());
+        entries.add(new Entry(binaryName.getBytes(UTF8), offset, record.size()));
+        offset += record.size();
+        if (offset >= MAX_SIZE) {
+            throw tooLarge();
+        }
+    }
+
+    /**
+     * Writes the index and puts the archive in place.
+     */
+    public void close() throws MojoExecutionException {
+        long size = offset + TRAILER_SIZE + (long) entries.size() * ENTRY_SIZE;
+        for (Entry entry : entries) {
+            size += entry.name.length;
+        }
+        if (size >= MAX_SIZE) {
+            abort();
+            throw tooLarge();
+        }
+        try {
+            try {
+                Collections.sort(entries, new Comparator<Entry>() {
+                    public int compare(Entry left, Entry right) {
+                        return compareNames(left.name, right.name);
+                    }
+                });
+                long namesOffset = offset;
+                int nameOffset = 0;
+                for (Entry entry : entries) {
+                    output.write(entry.name);
+                    entry.nameOffset = nameOffset;
+                    nameOffset += entry.name.length;
+                }
+                long entriesOffset = namesOffset + nameOffset;
+                for (Entry entry : entries) {
+                    output.writeInt(entry.nameOffset);
+                    output.writeInt(entry.name.length);
+                    output.writeLong(entry.offset);
+                    output.writeInt(entry.length);
+                }
+                output.writeLong(namesOffset);
+                output.writeLong(entriesOffset);
+                output.writeInt(entries.size());
+                output.writeInt(MAGIC);
+                output.close();
+                PerClassOutputWriter.move(temporaryFile, file);
+            } finally {
+                output.close();
+                Files.deleteIfExists(temporaryFile.toPath());
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not write the index of \"" + file + "\"", e);
+        }
+    }
+
+    public void abort() {
+        try {
+            if (output != null) {
+                output.close();
+            }
+        } catch (IOException e) {
+            // The archive is thrown away
+        }
+        temporaryFile.delete();
+    }
+
+    private MojoExecutionException tooLarge() {
+        return new MojoExecutionException("The archive \"" + file + "\" would be larger than 2 GB, use the \"files\" or"
+                + " \"ndjson\" output instead");
+    }
+
+    /**
+     * Orders UTF-8 encoded names by their unsigned bytes, the order the reader searches in.
+     */
+    static int compareNames(byte[] left, byte[] right) {
+        int length = Math.min(left.length, right.length);
+        for (int i = 0; i < length; i++) {
+            int difference = (left[i] & 0xFF) - (right[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return left.length - right.length;
+    }
+
+    private static class Entry {
+        private final byte[] name;
+        private final long offset;
+        private final int length;
+        private int nameOffset;
+
+        Entry(byte[] name, long offset, int length) {
+            this.name = name;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+}
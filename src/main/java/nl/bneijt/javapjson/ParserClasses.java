@@ -0,0 +1,105 @@
+package nl.bneijt.javapjson;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.parboiled.BaseParser;
+import org.parboiled.Parboiled;
+
+/**
+ * Creates the parboiled parsers from parser classes that were generated when the plugin was built, so a JVM that runs
+ * the goal does not have to instrument the grammar with ASM first. Loading the generated classes like any other class
+ * also means parboiled never has to define classes through <code>ClassLoader.defineClass</code>, which needs
+ * <code>--add-opens java.base/java.lang=ALL-UNNAMED</code> on Java 9 and later.
+ *
+ * The build runs {@link #main(String[])} after compiling to write the generated classes next to the compiled ones.
+ * When they are missing, like when the classes were compiled by an IDE, the parser is generated at runtime.
+ */
+public final class ParserClasses {
+
+    /**
+     * The grammars the plugin uses.
+     */
+    static final Class<?>[] GRAMMARS = { JavapLParser.class, JavapLValueParser.class };
+
+    private static final String GENERATED_SUFFIX = "$$parboiled";
+
+    private ParserClasses() {
+    }
+
+    /**
+     * Returns an instance of the parser class generated for the grammar, loading the class generated at build time
+     * when there is one.
+     */
+    public static <T extends BaseParser<V>, V> T create(Class<T> grammar) {
+        Class<?> generated;
+        try {
+            generated = Class.forName(grammar.getName() + GENERATED_SUFFIX, true, grammar.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return Parboiled.createParser(grammar);
+        }
+        try {
+            return grammar.cast(generated.getConstructor().newInstance());
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not create parser " + generated.getName(), e);
+        }
+    }
+
+    /**
+     * Generates the parser classes of the grammars and writes them to the class output directory given as the only
+     * argument. Needs <code>--add-opens java.base/java.lang=ALL-UNNAMED</code>, because parboiled loads the classes
+     * it generates.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: ParserClasses <class output directory>");
+        }
+        for (Class<?> grammar : GRAMMARS) {
+            write(new File(args[0]), generate(grammar));
+        }
+    }
+
+    /**
+     * Runs the parboiled transformation of the grammar and returns the code of the extended parser class and of the
+     * action and variable classes it uses, by internal class name. Action classes that an earlier grammar in the same
+     * JVM already generated are not generated again and are left out.
+     *
+     * The transformation is not public API of parboiled, so it is called through reflection.
+     */
+    static Map<String, byte[]> generate(Class<?> grammar) throws Exception {
+        Class<?> transformer = Class.forName("org.parboiled.transform.ParserTransformer");
+        Method extendParserClass = accessible(transformer.getDeclaredMethod("extendParserClass", Class.class));
+        Object classNode = extendParserClass.invoke(null, grammar);
+
+        Map<String, byte[]> classes = new LinkedHashMap<String, byte[]>();
+        classes.put((String) classNode.getClass().getField("name").get(classNode),
+                (byte[]) accessible(classNode.getClass().getMethod("getClassCode")).invoke(classNode));
+        Map<?, ?> ruleMethods = (Map<?, ?>) accessible(classNode.getClass().getMethod("getRuleMethods")).invoke(classNode);
+        for (Object ruleMethod : ruleMethods.values()) {
+            for (Object group : (List<?>) accessible(ruleMethod.getClass().getMethod("getGroups")).invoke(ruleMethod)) {
+                byte[] code = (byte[]) accessible(group.getClass().getMethod("getGroupClassCode")).invoke(group);
+                if (code != null) {
+                    Object type = accessible(group.getClass().getMethod("getGroupClassType")).invoke(group);
+                    classes.put((String) type.getClass().getMethod("getInternalName").invoke(type), code);
+                }
+            }
+        }
+        return classes;
+    }
+
+    private static Method accessible(Method method) {
+        method.setAccessible(true);
+        return method;
+    }
+
+    private static void write(File outputDirectory, Map<String, byte[]> classes) throws IOException {
+        for (Map.Entry<String, byte[]> generated : classes.entrySet()) {
+            FileUtils.writeByteArrayToFile(new File(outputDirectory, generated.getKey() + ".class"), generated.getValue());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package nl.bneijt.javapjson;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes a file per class, in the same directory layout as the class files.
+ *
+ * Every class is written to a temporary file next to its Json file and renamed over it, so a Json file is either the
+ * old or the new version, also after a crash. The temporary file name is unique for the writer and the thread, which
+ * makes it safe to write from several threads.
+ */
+public class PerClassOutputWriter implements OutputWriter {
+
+    private static final String CLASS_EXTENSION = ".class";
+
+    private final OutputFormat format;
+    private final JsonFactory jsonFactory;
+    private final String jsonDirectory;
+    private final String temporaryPrefix = "." + UUID.randomUUID() + "-";
+    private final Set<File> createdDirectories = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+
+    public PerClassOutputWriter(OutputFormat format, String jsonDirectory) {
+        this.format = format;
+        this.jsonFactory = format.createFactory();
+        this.jsonDirectory = jsonDirectory;
+    }
+
+    public void write(String relativeClassPath, JavapLOutput parseL) throws MojoExecutionException {
+        File jsonOutputFile = jsonFileFor(jsonDirectory, relativeClassPath, format);
+        File jsonOutputFileDirectory = jsonOutputFile.getParentFile();
+        File temporaryFile = new File(jsonOutputFileDirectory, temporaryPrefix + Thread.currentThread().getId() + ".tmp");
+        try {
+            if (!createdDirectories.contains(jsonOutputFileDirectory)) {
+                FileUtils.forceMkdir(jsonOutputFileDirectory);
+                createdDirectories.add(jsonOutputFileDirectory);
+            }
+            try {
+                JsonGenerator jsonOutput = jsonFactory.createJsonGenerator(new FileOutputStream(temporaryFile), JsonEncoding.UTF8);
+                try {
+                    parseL.toJsonOnto(jsonOutput);
+                } finally {
+                    jsonOutput.close();
+                }
+                move(temporaryFile, jsonOutputFile);
+            } finally {
+                Files.deleteIfExists(temporaryFile.toPath());
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to serialize javap output to Json", e);
+        }
+    }
+
+    public void close() {
+    }
+
+    /**
+     * Every class was written completely, so the classes written so far are kept.
+     */
+    public void abort() {
+    }
+
+    /**
+     * Renames the source over the target, atomically when the file system supports it.
+     */
+    static void move(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static File jsonFileFor(String jsonDirectory, String relativeClassPath, OutputFormat format) {
+        String jsonPath = relativeClassPath.substring(0, relativeClassPath.length() - CLASS_EXTENSION.length()) + "." + format.getExtension();
+        return new File(jsonDirectory + File.separator + jsonPath.replace('/', File.separatorChar));
+    }
+
+}
@@ -0,0 +1,201 @@
+package nl.bneijt.javapjson;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Collects how long every phase of a run took, per class where the phase works per class. Safe to use from the
+ * extraction threads.
+ *
+ * The time of a class is its extract and write time, javap and parse are the parts of extract for the javap engines.
+ * When javap handles a batch of classes, its time is divided evenly over the classes of the batch.
+ */
+public class PhaseTimings {
+
+    public static final String DISCOVER = "discover";
+    public static final String EXTRACT = "extract";
+    public static final String JAVAP = "javap";
+    public static final String PARSE = "parse";
+    public static final String WRITE = "write";
+
+    private static final int SLOWEST_CLASSES = 5;
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private final File classesDirectory;
+    private final Map<String, List<Long>> durations = new LinkedHashMap<String, List<Long>>();
+    private final Map<File, Long> classTotals = new HashMap<File, Long>();
+
+    public PhaseTimings(File classesDirectory) {
+        this.classesDirectory = classesDirectory;
+        for (String phase : Arrays.asList(DISCOVER, EXTRACT, JAVAP, PARSE, WRITE)) {
+            durations.put(phase, new ArrayList<Long>());
+        }
+    }
+
+    /**
+     * Records a phase that runs once for all classes.
+     */
+    public synchronized void record(String phase, long nanos) {
+        durations.get(phase).add(nanos);
+    }
+
+    /**
+     * Records the time a phase took for a single class.
+     */
+    public synchronized void record(String phase, File classFile, long nanos) {
+        durations.get(phase).add(nanos);
+        if (EXTRACT.equals(phase) || WRITE.equals(phase)) {
+            Long total = classTotals.get(classFile);
+            classTotals.put(classFile, total == null ? nanos : total + nanos);
+        }
+    }
+
+    /**
+     * Returns the total time recorded for a phase.
+     */
+    synchronized long total(String phase) {
+        return sum(sorted(durations.get(phase)));
+    }
+
+    /**
+     * Returns a human readable summary of a run that handled the given number of classes in the given wall clock
+     * time.
+     */
+    public synchronized List<String> summary(int classes, long wallNanos) {
+        List<String> lines = new ArrayList<String>();
+        lines.add(String.format(Locale.ROOT, "%d classes in %.1f ms, %.1f classes/s", classes, wallNanos / NANOS_PER_MILLI,
+                classesPerSecond(classes, wallNanos)));
+        for (Map.Entry<String, List<Long>> phase : durations.entrySet()) {
+            long[] sorted = sorted(phase.getValue());
+            if (sorted.length == 0) {
+                continue;
+            }
+            if (DISCOVER.equals(phase.getKey())) {
+                lines.add(String.format(Locale.ROOT, "  %-8s total %9.1f ms", phase.getKey(), sum(sorted) / NANOS_PER_MILLI));
+            } else {
+                lines.add(String.format(Locale.ROOT, "  %-8s total %9.1f ms, p50 %7.2f ms, p95 %7.2f ms, max %7.2f ms",
+                        phase.getKey(), sum(sorted) / NANOS_PER_MILLI, percentile(sorted, 50) / NANOS_PER_MILLI,
+                        percentile(sorted, 95) / NANOS_PER_MILLI, sorted[sorted.length - 1] / NANOS_PER_MILLI));
+            }
+        }
+        List<Map.Entry<File, Long>> slowest = slowest();
+        if (!slowest.isEmpty()) {
+            lines.add("  slowest classes:");
+            for (Map.Entry<File, Long> entry : slowest) {
+                lines.add(String.format(Locale.ROOT, "    %7.2f ms %s", entry.getValue() / NANOS_PER_MILLI, relativePath(entry.getKey())));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Writes the same data as the summary as Json, for tools that track it over time.
+     */
+    public synchronized void writeJson(JsonFactory jsonFactory, File file, int classes, long wallNanos) throws MojoExecutionException {
+        try {
+            JsonGenerator generator = jsonFactory.createJsonGenerator(file, JsonEncoding.UTF8);
+            try {
+                generator.writeStartObject();
+                generator.writeNumberField("timestamp", System.currentTimeMillis());
+                generator.writeNumberField("classes", classes);
+                generator.writeNumberField("totalMillis", wallNanos / NANOS_PER_MILLI);
+                generator.writeNumberField("classesPerSecond", classesPerSecond(classes, wallNanos));
+                generator.writeObjectFieldStart("phases");
+                for (Map.Entry<String, List<Long>> phase : durations.entrySet()) {
+                    long[] sorted = sorted(phase.getValue());
+                    if (sorted.length == 0) {
+                        continue;
+                    }
+                    generator.writeObjectFieldStart(phase.getKey());
+                    generator.writeNumberField("count", sorted.length);
+                    generator.writeNumberField("totalMillis", sum(sorted) / NANOS_PER_MILLI);
+                    generator.writeNumberField("p50Millis", percentile(sorted, 50) / NANOS_PER_MILLI);
+                    generator.writeNumberField("p95Millis", percentile(sorted, 95) / NANOS_PER_MILLI);
+                    generator.writeNumberField("maxMillis", sorted[sorted.length - 1] / NANOS_PER_MILLI);
+                    generator.writeEndObject();
+                }
+                generator.writeEndObject();
+                generator.writeArrayFieldStart("slowestClasses");
+                for (Map.Entry<File, Long> entry : slowest()) {
+                    generator.writeStartObject();
+                    generator.writeStringField("path", relativePath(entry.getKey()));
+                    generator.writeNumberField("millis", entry.getValue() / NANOS_PER_MILLI);
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            } finally {
+                generator.close();
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not write statistics to \"" + file + "\"", e);
+        }
+    }
+
+    private List<Map.Entry<File, Long>> slowest() {
+        List<Map.Entry<File, Long>> entries = new ArrayList<Map.Entry<File, Long>>(classTotals.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<File, Long>>() {
+            public int compare(Map.Entry<File, Long> left, Map.Entry<File, Long> right) {
+                return right.getValue().compareTo(left.getValue());
+            }
+        });
+        return entries.subList(0, Math.min(SLOWEST_CLASSES, entries.size()));
+    }
+
+    private String relativePath(File classFile) {
+        String path = classFile.getPath();
+        String root = classesDirectory.getPath();
+        if (path.startsWith(root)) {
+            path = path.substring(root.length());
+            if (path.startsWith(File.separator)) {
+                path = path.substring(1);
+            }
+        }
+        return path.replace(File.separatorChar, '/');
+    }
+
+    private static double classesPerSecond(int classes, long wallNanos) {
+        return wallNanos == 0 ? 0 : classes * 1e9 / wallNanos;
+    }
+
+    private static long[] sorted(List<Long> values) {
+        long[] sorted = new long[values.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = values.get(i);
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static long sum(long[] values) {
+        long sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    /**
+     * Nearest rank percentile of a sorted, non empty array.
+     */
+    static long percentile(long[] sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+}
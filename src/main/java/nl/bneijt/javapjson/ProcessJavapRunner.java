@@ -0,0 +1,116 @@
+package nl.bneijt.javapjson;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Runs javap as an external process, one process per call. Standard output is streamed to the caller while standard
+ * error is drained on a separate thread, so javap can never block on a full error pipe.
+ */
+public class ProcessJavapRunner implements JavapRunner {
+
+    private static final int MAX_ERROR_OUTPUT = 8 * 1024;
+
+    public Reader run(String... arguments) throws MojoExecutionException {
+        List<String> command = new ArrayList<String>();
+        command.add("javap");
+        command.addAll(Arrays.asList(arguments));
+        ProcessBuilder psBuilder = new ProcessBuilder(command);
+        Process process;
+        try {
+            process = psBuilder.start();
+        } catch (IOException e1) {
+            throw new MojoExecutionException("Could not start process builder", e1);
+        }
+        try {
+            process.getOutputStream().close();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not close output stream while executing javap");
+        }
+        Charset charset = Charset.forName(System.getProperty("native.encoding", Charset.defaultCharset().name()));
+        ErrorDrainer errorDrainer = new ErrorDrainer(process.getErrorStream(), charset);
+        errorDrainer.start();
+        return new ProcessOutputReader(new InputStreamReader(process.getInputStream(), charset), process, errorDrainer, arguments);
+    }
+
+    private static class ProcessOutputReader extends FilterReader {
+        private final Process process;
+        private final ErrorDrainer errorDrainer;
+        private final String[] arguments;
+
+        ProcessOutputReader(Reader output, Process process, ErrorDrainer errorDrainer, String[] arguments) {
+            super(output);
+            this.process = process;
+            this.errorDrainer = errorDrainer;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Read what is left, so javap does not block on a full pipe before it exits
+            char[] rest = new char[4096];
+            while (in.read(rest) >= 0) {
+                // Discard
+            }
+            in.close();
+            int exitCode;
+            try {
+                exitCode = process.waitFor();
+                errorDrainer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroy();
+                throw new IOException("Interrupted while waiting for javap to finish", e);
+            }
+            if (exitCode != 0) {
+                throw new IOException("javap " + Arrays.toString(arguments) + " exited with " + exitCode + ": " + errorDrainer.getErrorOutput());
+            }
+        }
+    }
+
+    private static class ErrorDrainer extends Thread {
+        private final InputStream error;
+        private final Charset charset;
+        private final StringBuilder errorOutput = new StringBuilder();
+
+        ErrorDrainer(InputStream error, Charset charset) {
+            super("javap-stderr");
+            setDaemon(true);
+            this.error = error;
+            this.charset = charset;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Reader reader = new InputStreamReader(error, charset);
+                char[] buffer = new char[1024];
+                int count;
+                while ((count = reader.read(buffer)) >= 0) {
+                    synchronized (errorOutput) {
+                        errorOutput.append(buffer, 0, Math.min(count, MAX_ERROR_OUTPUT - errorOutput.length()));
+                    }
+                }
+                reader.close();
+            } catch (IOException e) {
+                // The process is gone, nothing left to drain
+            }
+        }
+
+        String getErrorOutput() {
+            synchronized (errorOutput) {
+                return errorOutput.toString();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+package nl.bneijt.javapjson;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Worker threads and the javap tool shared by all executions of the plugin in a JVM, so the modules of a reactor
+ * build after the first one start with warm workers. The threads keep their parser instances between executions,
+ * and the code they run stays compiled by the JIT.
+ *
+ * Maven keeps the plugin class loader for the whole build, so the workers live as long as the build uses them. The
+ * plugin API has no hook for the end of a build, instead every execution reports its start and end, and the threads
+ * are stopped when the execution for the last project of the reactor has ended and no other execution is running.
+ * The threads also stop after they have been idle for a while, and they are daemon threads that never keep the JVM
+ * alive.
+ */
+public final class SharedWorkers {
+
+    private static final long IDLE_SECONDS = 30;
+
+    private static ThreadPoolExecutor executor;
+    private static ToolProviderJavapRunner javapRunner;
+    private static ForkJoinPool memberParsers;
+    private static int runningExecutions;
+    private static boolean lastProjectDone;
+
+    private SharedWorkers() {
+    }
+
+    /**
+     * Returns the shared executor with at least the given number of threads. The executor is used by all executions
+     * and should not be shut down.
+     */
+    public static synchronized ExecutorService executor(int threads) {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(threads, threads, IDLE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ExtractionPipeline.WorkerThreadFactory());
+            executor.allowCoreThreadTimeOut(true);
+        } else if (executor.getMaximumPoolSize() < threads) {
+            executor.setMaximumPoolSize(threads);
+            executor.setCorePoolSize(threads);
+        }
+        return executor;
+    }
+
+    /**
+     * Returns the shared in-process javap, looked up once per JVM.
+     */
+    public static synchronized ToolProviderJavapRunner javapRunner() throws MojoExecutionException {
+        if (javapRunner == null) {
+            javapRunner = new ToolProviderJavapRunner();
+        }
+        return javapRunner;
+    }
+
+    /**
+     * Returns the fork/join pool that parses the members of huge classes, with at least the given number of threads.
+     * Its threads are daemon threads that stop when the pool has been idle for a while.
+     */
+    public static synchronized ForkJoinPool memberParsers(int threads) {
+        if (memberParsers == null || memberParsers.getParallelism() < threads) {
+            if (memberParsers != null) {
+                // Members already handed to the old pool are still parsed
+                memberParsers.shutdown();
+            }
+            memberParsers = new ForkJoinPool(threads);
+        }
+        return memberParsers;
+    }
+
+    /**
+     * Registers an execution that uses the shared workers, to be ended by {@link #end(boolean)}.
+     */
+    public static synchronized void begin() {
+        runningExecutions++;
+    }
+
+    /**
+     * Ends an execution, and stops the shared threads when it was the last one of the build.
+     *
+     * @param lastProject whether the execution was for the last project of the reactor
+     */
+    public static synchronized void end(boolean lastProject) {
+        runningExecutions--;
+        lastProjectDone |= lastProject;
+        if (lastProjectDone && runningExecutions == 0) {
+            lastProjectDone = false;
+            shutdown();
+        }
+    }
+
+    /**
+     * Stops the shared threads, a later call to {@link #executor(int)} or {@link #memberParsers(int)} starts new ones.
+     */
+    public static synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        if (memberParsers != null) {
+            memberParsers.shutdownNow();
+            memberParsers = null;
+        }
+    }
+
+}
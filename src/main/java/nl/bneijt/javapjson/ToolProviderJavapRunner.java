@@ -0,0 +1,204 @@
+package nl.bneijt.javapjson;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.spi.ToolProvider;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Runs javap inside the current JVM, on a thread of its own per call, and streams its output to the caller through a
+ * bounded pipe. Javap waits when the caller falls behind, so only a few chunks of output are held in memory however
+ * large the batch is. One runner can be shared by all extraction threads.
+ *
+ * Like for {@link ProcessJavapRunner}, closing the returned reader waits for javap to finish and reports a failed
+ * invocation. Output that was not read when the reader is closed is dropped, javap does not wait for it to be read.
+ */
+public class ToolProviderJavapRunner implements JavapRunner {
+
+    private static final int CHUNK_SIZE = 8 * 1024;
+    private static final int MAX_CHUNKS = 8;
+    private static final char[] END = new char[0];
+
+    private final ToolProvider javap;
+
+    public ToolProviderJavapRunner() throws MojoExecutionException {
+        Optional<ToolProvider> tool = ToolProvider.findFirst("javap");
+        if (!tool.isPresent()) {
+            throw new MojoExecutionException("No javap tool provider found, is Maven running on a JDK?");
+        }
+        this.javap = tool.get();
+    }
+
+    ToolProviderJavapRunner(ToolProvider javap) {
+        this.javap = javap;
+    }
+
+    public Reader run(String... arguments) throws MojoExecutionException {
+        JavapThread thread = new JavapThread(javap, arguments);
+        thread.start();
+        return new PipeReader(thread);
+    }
+
+    /**
+     * Runs javap, writing its output into the pipe in chunks.
+     */
+    private static class JavapThread extends Thread {
+        private final ToolProvider javap;
+        private final String[] arguments;
+        private final BlockingQueue<char[]> chunks = new ArrayBlockingQueue<char[]>(MAX_CHUNKS);
+        private final StringWriter error = new StringWriter();
+        private volatile int exitCode;
+        private volatile Throwable failure;
+        private volatile boolean closed;
+
+        JavapThread(ToolProvider javap, String[] arguments) {
+            super("javap");
+            setDaemon(true);
+            this.javap = javap;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public void run() {
+            PipeWriter pipe = new PipeWriter(this);
+            try {
+                PrintWriter output = new PrintWriter(pipe);
+                PrintWriter errorWriter = new PrintWriter(error);
+                exitCode = javap.run(output, errorWriter, arguments);
+                output.flush();
+                errorWriter.flush();
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                try {
+                    pipe.close();
+                } catch (IOException e) {
+                    // Only interrupted, the reader is gone
+                }
+            }
+        }
+    }
+
+    /**
+     * Cuts what javap writes into chunks and queues them, waiting for room when the reader falls behind. Once the
+     * reader is closed the chunks are dropped.
+     */
+    private static class PipeWriter extends Writer {
+        private final JavapThread thread;
+        private char[] chunk = new char[CHUNK_SIZE];
+        private int length;
+
+        PipeWriter(JavapThread thread) {
+            this.thread = thread;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int count) throws IOException {
+            while (count > 0) {
+                int copied = Math.min(count, chunk.length - length);
+                System.arraycopy(buffer, offset, chunk, length, copied);
+                length += copied;
+                offset += copied;
+                count -= copied;
+                if (length == chunk.length) {
+                    put(chunk);
+                    chunk = new char[CHUNK_SIZE];
+                    length = 0;
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (length > 0) {
+                put(Arrays.copyOf(chunk, length));
+                length = 0;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            put(END);
+        }
+
+        private void put(char[] queued) throws IOException {
+            if (thread.closed) {
+                return;
+            }
+            try {
+                thread.chunks.put(queued);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while writing javap output");
+            }
+        }
+    }
+
+    /**
+     * Reads the chunks javap wrote. Closing it marks the pipe closed and empties it, which wakes javap when it waits for
+     * room and makes it drop the rest of its output, and then waits for javap to finish.
+     */
+    private static class PipeReader extends Reader {
+        private final JavapThread thread;
+        private char[] chunk;
+        private int position;
+
+        PipeReader(JavapThread thread) {
+            this.thread = thread;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int count) throws IOException {
+            if (count == 0) {
+                return 0;
+            }
+            while (chunk != END && (chunk == null || position == chunk.length)) {
+                try {
+                    chunk = thread.chunks.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while reading javap output");
+                }
+                position = 0;
+            }
+            if (chunk == END) {
+                return -1;
+            }
+            int read = Math.min(count, chunk.length - position);
+            System.arraycopy(chunk, position, buffer, offset, read);
+            position += read;
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            thread.closed = true;
+            thread.chunks.clear();
+            chunk = END;
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for javap to finish");
+            }
+            if (thread.failure != null) {
+                throw new IOException("javap " + Arrays.toString(thread.arguments) + " failed", thread.failure);
+            }
+            if (thread.exitCode != 0) {
+                throw new IOException("javap " + Arrays.toString(thread.arguments) + " exited with " + thread.exitCode
+                        + ": " + thread.error);
+            }
+        }
+    }
+
+}
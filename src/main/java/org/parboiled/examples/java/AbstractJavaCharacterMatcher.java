@@ -19,10 +19,32 @@ package org.parboiled.examples.java;
 import org.parboiled.MatcherContext;
 import org.parboiled.matchers.CustomMatcher;
 
+/**
+ * Matches a single character of a Unicode character class. The class of the ASCII characters is looked up in a
+ * bitset computed once from {@link #acceptChar(char)}, only the characters above 0x7F take the Unicode path.
+ */
 public abstract class AbstractJavaCharacterMatcher extends CustomMatcher {
 
+    private final long asciiLow;
+    private final long asciiHigh;
+
+    /**
+     * Computes the ASCII bitset with {@link #acceptChar(char)}. This runs before the fields of the subclass are
+     * initialized, so the subclass sees them as null, zero or false in <code>acceptChar</code>.
+     */
     protected AbstractJavaCharacterMatcher(String label) {
         super(label);
+        long low = 0, high = 0;
+        for (char c = 0; c < 64; c++) {
+            if (acceptChar(c)) {
+                low |= 1L << c;
+            }
+            if (acceptChar((char) (c + 64))) {
+                high |= 1L << c;
+            }
+        }
+        asciiLow = low;
+        asciiHigh = high;
     }
 
     @Override
@@ -37,7 +59,7 @@ public abstract class AbstractJavaCharacterMatcher extends CustomMatcher {
 
     @Override
     public boolean isStarterChar(char c) {
-        return acceptChar(c);
+        return accepts(c);
     }
 
     @Override
@@ -46,7 +68,7 @@ public abstract class AbstractJavaCharacterMatcher extends CustomMatcher {
     }
 
     public final <V> boolean match(MatcherContext<V> context) {
-        if (!acceptChar(context.getCurrentChar())) {
+        if (!accepts(context.getCurrentChar())) {
             return false;
         }
         context.advanceIndex(1);
@@ -54,5 +76,24 @@ public abstract class AbstractJavaCharacterMatcher extends CustomMatcher {
         return true;
     }
 
+    /**
+     * Returns whether the character belongs to the class, from the ASCII bitset when possible.
+     */
+    public final boolean accepts(char c) {
+        if (c < 64) {
+            return (asciiLow & 1L << c) != 0;
+        }
+        if (c < 128) {
+            // a long shift only uses the low six bits of c
+            return (asciiHigh & 1L << c) != 0;
+        }
+        return acceptChar(c);
+    }
+
+    /**
+     * The Unicode definition of the character class. Called from the constructor of this class to compute the ASCII
+     * bitset, before the subclass is initialized, so it must only depend on its argument and never on fields of the
+     * subclass.
+     */
     protected abstract boolean acceptChar(char c);
 }
@@ -0,0 +1,55 @@
+package org.parboiled.examples.java;
+
+import org.parboiled.MatcherContext;
+import org.parboiled.buffers.InputBuffer;
+import org.parboiled.matchers.CustomMatcher;
+
+/**
+ * Matches a run of one or more characters of the class of the given character matcher in a single step, like
+ * <code>OneOrMore(characters)</code> without running a matcher and creating a node for every character. Identifiers
+ * mostly consist of ASCII letters and digits, so a run usually ends at the first character outside the class.
+ */
+public class JavaCharacterRunMatcher extends CustomMatcher {
+
+    private final AbstractJavaCharacterMatcher characters;
+
+    public JavaCharacterRunMatcher(String label, AbstractJavaCharacterMatcher characters) {
+        super(label);
+        this.characters = characters;
+    }
+
+    @Override
+    public final boolean isSingleCharMatcher() {
+        return false;
+    }
+
+    @Override
+    public final boolean canMatchEmpty() {
+        return false;
+    }
+
+    @Override
+    public boolean isStarterChar(char c) {
+        return characters.accepts(c);
+    }
+
+    @Override
+    public final char getStarterChar() {
+        return characters.getStarterChar();
+    }
+
+    public final <V> boolean match(MatcherContext<V> context) {
+        InputBuffer input = context.getInputBuffer();
+        int start = context.getCurrentIndex();
+        int end = start;
+        while (characters.accepts(input.charAt(end))) {
+            end++;
+        }
+        if (end == start) {
+            return false;
+        }
+        context.advanceIndex(end - start);
+        context.createNode();
+        return true;
+    }
+}
@@ -872,7 +872,7 @@ public class JavaParser extends BaseParser<Object> {
     @SuppressSubnodes
     @MemoMismatches
     public Rule JavapIdentifier() {
-        return Sequence(TestNot(Keyword()), Letter(), ZeroOrMore(LetterOrDigit()), Spacing());
+        return Sequence(TestNot(Keyword()), Letter(), ZeroOrMore(LetterOrDigits()), Spacing());
     }
 
     // JLS defines letters and digits as Unicode characters recognized
@@ -891,6 +891,12 @@ public class JavaParser extends BaseParser<Object> {
         return FirstOf(Sequence('\\', UnicodeEscape()), new JavaLetterOrDigitMatcher());
     }
 
+    // a whole run of letters and digits at once, only Unicode escapes are matched one by one
+    public Rule LetterOrDigits() {
+        return FirstOf(Sequence('\\', UnicodeEscape()),
+                new JavaCharacterRunMatcher("LetterOrDigits", new JavaLetterOrDigitMatcher()));
+    }
+
     //-------------------------------------------------------------------------
     //  JLS 3.9  Keywords
     //-------------------------------------------------------------------------
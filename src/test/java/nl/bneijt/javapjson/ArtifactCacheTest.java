@@ -0,0 +1,69 @@
+package nl.bneijt.javapjson;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ArtifactCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private void storeEntry(ArtifactCache cache, String hash, int size) throws Exception {
+        File staging = cache.stage(hash);
+        FileUtils.writeByteArrayToFile(new File(staging, "a/A.json"), new byte[size]);
+        cache.store(hash, staging);
+    }
+
+    @Test
+    public void shouldRestoreStoredOutput() throws Exception {
+        ArtifactCache cache = new ArtifactCache(folder.newFolder("cache"), "engine=classfile", 1024);
+        File target = new File(folder.getRoot(), "target");
+        assertFalse(cache.restore("aa", target));
+        storeEntry(cache, "aa", 10);
+        assertTrue(cache.restore("aa", target));
+        assertEquals(10, new File(target, "a/A.json").length());
+    }
+
+    @Test
+    public void shouldSeparateConfigurations() throws Exception {
+        File directory = folder.newFolder("cache");
+        storeEntry(new ArtifactCache(directory, "engine=classfile", 1024), "aa", 10);
+        assertFalse(new ArtifactCache(directory, "engine=javap", 1024).restore("aa", new File(folder.getRoot(), "target")));
+    }
+
+    @Test
+    public void shouldKeepExistingEntryWhenStoringTwice() throws Exception {
+        File directory = folder.newFolder("cache");
+        ArtifactCache cache = new ArtifactCache(directory, "engine=classfile", 1024);
+        storeEntry(cache, "aa", 10);
+        storeEntry(cache, "aa", 20);
+        assertEquals(1, directory.list().length);
+        File target = new File(folder.getRoot(), "target");
+        assertTrue(cache.restore("aa", target));
+        assertEquals(10, new File(target, "a/A.json").length());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedEntries() throws Exception {
+        File directory = folder.newFolder("cache");
+        ArtifactCache cache = new ArtifactCache(directory, "engine=classfile", 250);
+        storeEntry(cache, "aa", 100);
+        storeEntry(cache, "bb", 100);
+        storeEntry(cache, "cc", 100);
+        long now = System.currentTimeMillis();
+        for (File entry : directory.listFiles()) {
+            entry.setLastModified(now - 60000);
+        }
+        File target = new File(folder.getRoot(), "target");
+        assertTrue(cache.restore("aa", target));
+        assertTrue(cache.restore("cc", target));
+        assertEquals(1, cache.evict());
+        assertFalse(cache.restore("bb", target));
+        assertTrue(cache.restore("aa", target));
+    }
+}
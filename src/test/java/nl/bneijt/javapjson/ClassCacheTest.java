@@ -0,0 +1,105 @@
+package nl.bneijt.javapjson;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ClassCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File cacheDirectory;
+    private File outputFile;
+
+    @Before
+    public void createOutput() throws Exception {
+        cacheDirectory = folder.newFolder("cache");
+        outputFile = new File(folder.getRoot(), "module/a/A.json");
+        FileUtils.writeStringToFile(outputFile, "{\"className\":\"a.A\"}");
+    }
+
+    @Test
+    public void shouldRestoreStoredJson() throws Exception {
+        ClassCache cache = new ClassCache(cacheDirectory, "engine=classfile", OutputFormat.JSON, 1024);
+        File otherModule = new File(folder.getRoot(), "other/a/A.json");
+        assertFalse(cache.restore("abcdef", otherModule));
+        cache.store("abcdef", outputFile);
+        assertTrue(cache.restore("abcdef", otherModule));
+        assertEquals("{\"className\":\"a.A\"}", FileUtils.readFileToString(otherModule));
+    }
+
+    @Test
+    public void shouldNotChangeCacheWhenOutputIsRewritten() throws Exception {
+        ClassCache cache = new ClassCache(cacheDirectory, "engine=classfile", OutputFormat.JSON, 1024);
+        cache.store("abcdef", outputFile);
+        new PerClassOutputWriter(OutputFormat.JSON, new File(folder.getRoot(), "module").getPath())
+                .write("a/A.class", new JavapLOutput());
+        File restored = new File(folder.getRoot(), "other/A.json");
+        assertTrue(cache.restore("abcdef", restored));
+        assertEquals("{\"className\":\"a.A\"}", FileUtils.readFileToString(restored));
+    }
+
+    @Test
+    public void shouldNotTouchTheOutputLinkedToACachedFile() throws Exception {
+        ClassCache cache = new ClassCache(cacheDirectory, "engine=classfile", OutputFormat.JSON, 1024);
+        cache.store("abcdef", outputFile);
+        long written = System.currentTimeMillis() - 60000;
+        outputFile.setLastModified(written);
+        assertTrue(cache.restore("abcdef", new File(folder.getRoot(), "other/a/A.json")));
+        assertEquals(written, outputFile.lastModified());
+    }
+
+    @Test
+    public void shouldSeparateFormats() throws Exception {
+        new ClassCache(cacheDirectory, "engine=classfile", OutputFormat.JSON, 1024).store("abcdef", outputFile);
+        assertFalse(new ClassCache(cacheDirectory, "engine=classfile,format=smile", OutputFormat.SMILE, 1024)
+                .restore("abcdef", new File(folder.getRoot(), "A.sml")));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedClasses() throws Exception {
+        ClassCache cache = new ClassCache(cacheDirectory, "engine=classfile", OutputFormat.JSON, 30);
+        for (String hash : new String[] { "aa01", "bb02", "cc03" }) {
+            File classOutput = new File(folder.getRoot(), hash + ".json");
+            FileUtils.writeStringToFile(classOutput, "{\"className\":\"" + hash + "\"}");
+            cache.store(hash, classOutput);
+        }
+        long now = System.currentTimeMillis();
+        for (File file : FileUtils.listFiles(cacheDirectory, null, true)) {
+            file.setLastModified(now - 60000);
+        }
+        File target = new File(folder.getRoot(), "target.json");
+        assertTrue(cache.restore("bb02", target));
+        assertEquals(2, cache.evict());
+        assertTrue(cache.restore("bb02", target));
+        assertFalse(cache.restore("aa01", target));
+        assertFalse(cache.restore("cc03", target));
+    }
+
+    @Test
+    public void shouldEvictClassesOfOtherConfigurations() throws Exception {
+        ClassCache old = new ClassCache(cacheDirectory, "plugin=1,engine=classfile", OutputFormat.JSON, 30);
+        for (String hash : new String[] { "aa01", "bb02" }) {
+            File classOutput = new File(folder.getRoot(), hash + ".json");
+            FileUtils.writeStringToFile(classOutput, "{\"className\":\"" + hash + "\"}");
+            old.store(hash, classOutput);
+        }
+        long now = System.currentTimeMillis();
+        for (File file : FileUtils.listFiles(cacheDirectory, null, true)) {
+            file.setLastModified(now - 60000);
+        }
+        ClassCache current = new ClassCache(cacheDirectory, "plugin=2,engine=classfile", OutputFormat.JSON, 30);
+        current.store("cc03", outputFile);
+        assertEquals(2, current.evict());
+        File target = new File(folder.getRoot(), "target.json");
+        assertFalse(old.restore("aa01", target));
+        assertFalse(old.restore("bb02", target));
+        assertTrue(current.restore("cc03", target));
+    }
+}
@@ -0,0 +1,64 @@
+package nl.bneijt.javapjson;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ClassDiscoveryTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void createClasses() throws Exception {
+        for (String path : Arrays.asList("A.class", "a/B.class", "a/B.txt", "a/generated/C.class", "b/DTest.class",
+                "module-info.class", "a/package-info.class")) {
+            File file = new File(folder.getRoot(), path);
+            file.getParentFile().mkdirs();
+            file.createNewFile();
+        }
+    }
+
+    private Set<String> discover(List<String> includes, List<String> excludes) throws Exception {
+        ClassDiscovery discovery = new ClassDiscovery(folder.getRoot(), includes, excludes).start();
+        Set<String> paths = new TreeSet<String>();
+        for (File file = discovery.next(); file != null; file = discovery.next()) {
+            paths.add(file.getPath().substring(folder.getRoot().getPath().length() + 1).replace(File.separatorChar, '/'));
+        }
+        assertNull(discovery.next());
+        return paths;
+    }
+
+    @Test
+    public void shouldFindAllClasses() throws Exception {
+        List<String> none = Collections.emptyList();
+        assertEquals(new TreeSet<String>(Arrays.asList("A.class", "a/B.class", "a/generated/C.class", "b/DTest.class")), discover(none, none));
+    }
+
+    @Test
+    public void shouldApplyIncludesAndExcludes() throws Exception {
+        assertEquals(new TreeSet<String>(Arrays.asList("a/B.class")),
+                discover(ClassDiscovery.globs("a/**"), ClassDiscovery.globs("**/generated, **Test.class")));
+        assertEquals(new TreeSet<String>(Arrays.asList("A.class", "a/B.class")),
+                discover(Collections.<String>emptyList(), ClassDiscovery.globs("a/generated,b/**")));
+    }
+
+    @Test
+    public void shouldStreamMoreClassesThanItQueues() throws Exception {
+        File many = new File(folder.getRoot(), "many");
+        many.mkdir();
+        for (int i = 0; i < 3000; i++) {
+            new File(many, "C" + i + ".class").createNewFile();
+        }
+        assertEquals(3000, discover(ClassDiscovery.globs("many/*"), Collections.<String>emptyList()).size());
+    }
+}
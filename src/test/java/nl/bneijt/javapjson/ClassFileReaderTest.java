@@ -0,0 +1,125 @@
+package nl.bneijt.javapjson;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+public class ClassFileReaderTest {
+
+    private static File classFileOf(Class<?> type) {
+        return new File(type.getResource(type.getSimpleName() + ".class").getFile());
+    }
+
+    private static JavapMember findMember(JavapLOutput output, String name) {
+        for (JavapMember member : output.getMembers()) {
+            if (member.getName().equals(name)) {
+                return member;
+            }
+        }
+        fail("No member " + name + " in " + output.getClassName());
+        return null;
+    }
+
+    /**
+     * Types javap prints from their Signature attribute, to compare both engines on.
+     */
+    public interface GenericFixture<K extends Comparable<? super K>, V> extends Map<K, List<? extends V>>, Serializable {
+        <E extends Exception> void visit(Class<?>[] types, String... names) throws E, IOException;
+
+        default List<V> values(K key) {
+            return null;
+        }
+
+        public class Inner {
+            public Inner(Collection<? extends Number> numbers, int... more) {
+            }
+        }
+    }
+
+    private static String json(JavapLOutput output) throws Exception {
+        StringWriter json = new StringWriter();
+        JsonGenerator generator = new JsonFactory().createJsonGenerator(json);
+        output.toJsonOnto(generator);
+        generator.close();
+        return json.toString();
+    }
+
+    private static List<File> classFilesNextTo(Class<?> type) throws Exception {
+        File classes = new File(type.getProtectionDomain().getCodeSource().getLocation().toURI());
+        List<File> classFiles = new ArrayList<File>();
+        for (File classFile : FileUtils.listFiles(classes, new String[] { "class" }, true)) {
+            if (!classFile.getName().endsWith("-info.class")) {
+                classFiles.add(classFile);
+            }
+        }
+        return classFiles;
+    }
+
+    @Test
+    public void shouldProduceTheSameOutputAsJavap() throws Exception {
+        List<File> classFiles = classFilesNextTo(ClassFileEngine.class);
+        classFiles.addAll(classFilesNextTo(ClassFileReaderTest.class));
+        JavapEngine javap = new JavapEngine(new ToolProviderJavapRunner(), new JavapLScanner());
+        ClassFileEngine engine = new ClassFileEngine();
+        for (File classFile : classFiles) {
+            assertEquals(classFile.getPath(), json(javap.extract(classFile)), json(engine.extract(classFile)));
+        }
+    }
+
+    @Test
+    public void shouldReadClassHeader() throws Exception {
+        JavapLOutput output = new ClassFileEngine().extract(classFileOf(JavapEngine.class));
+        assertEquals("JavapEngine.java", output.getSourceFile());
+        assertEquals(Arrays.asList("public", "class"), output.getModifiers());
+        assertEquals("nl.bneijt.javapjson.JavapEngine", output.getClassName());
+        assertEquals("java.lang.Object", output.getSuperClassName());
+        assertEquals(Arrays.asList("nl.bneijt.javapjson.ExtractionEngine"), output.getInterfaces());
+    }
+
+    @Test
+    public void shouldReadMethodsWithTheirTables() throws Exception {
+        JavapLOutput output = new ClassFileEngine().extract(classFileOf(JavapEngine.class));
+        JavapMember extract = findMember(output, "extract");
+        assertEquals(Arrays.asList("public"), extract.getModifiers());
+        assertEquals("nl.bneijt.javapjson.JavapLOutput", extract.getType());
+        assertEquals(Arrays.asList("java.io.File"), extract.getParameters());
+        assertEquals(Arrays.asList("org.apache.maven.plugin.MojoExecutionException"), extract.getExceptions());
+        assertFalse(extract.getLineNumberTable().isEmpty());
+        LocalVariableTable localVariables = extract.getLocalVariableTable();
+        assertEquals("this", localVariables.getName(0));
+        assertEquals(0, localVariables.getSlot(0));
+        assertEquals("Lnl/bneijt/javapjson/JavapEngine;", localVariables.getSignature(0));
+        assertEquals("classFile", localVariables.getName(1));
+    }
+
+    @Test
+    public void shouldSkipPrivateMembersLikeJavap() throws Exception {
+        JavapLOutput output = new ClassFileEngine().extract(classFileOf(JavapEngine.class));
+        for (JavapMember member : output.getMembers()) {
+            assertFalse(member.getName().equals("javapRunner"));
+        }
+        assertNull(findMember(output, "<init>").getType());
+    }
+
+    @Test
+    public void shouldDecodeArrayAndPrimitiveDescriptors() {
+        java.util.List<String> types = new java.util.ArrayList<String>();
+        int index = ClassFileReader.decodeType("[[ILjava/lang/String;", 0, types);
+        ClassFileReader.decodeType("[[ILjava/lang/String;", index, types);
+        assertEquals(Arrays.asList("int[][]", "java.lang.String"), types);
+    }
+}
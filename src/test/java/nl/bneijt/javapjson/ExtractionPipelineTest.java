@@ -0,0 +1,81 @@
+package nl.bneijt.javapjson;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.SuffixFileFilter;
+import org.apache.commons.io.filefilter.TrueFileFilter;
+import org.junit.Test;
+
+public class ExtractionPipelineTest {
+
+    private static List<String> extractClassNames(List<File> classFiles, int threads, int batchSize) throws Exception {
+        final List<String> classNames = new ArrayList<String>();
+        new ExtractionPipeline(new ClassFileEngine(), threads, batchSize).run(classFiles, new ExtractionPipeline.ResultHandler() {
+            public void handle(File classFile, JavapLOutput output) {
+                classNames.add(output.getClassName());
+            }
+        });
+        return classNames;
+    }
+
+    @Test
+    public void shouldProduceSameResultsInSameOrderAsSequentialRun() throws Exception {
+        File classes = new File(ExtractionPipeline.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        List<File> classFiles = new ArrayList<File>(FileUtils.listFiles(classes, new SuffixFileFilter(".class"), TrueFileFilter.INSTANCE));
+        List<String> sequential = extractClassNames(classFiles, 1, 200);
+        assertEquals(classFiles.size(), sequential.size());
+        assertEquals(sequential, extractClassNames(classFiles, 4, 200));
+        assertEquals(sequential, extractClassNames(classFiles, 3, 1));
+    }
+
+    @Test
+    public void shouldExtractClassesFromSourceInOrder() throws Exception {
+        File classes = new File(ExtractionPipeline.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        List<File> classFiles = new ArrayList<File>(FileUtils.listFiles(classes, new SuffixFileFilter(".class"), TrueFileFilter.INSTANCE));
+        List<String> sequential = extractClassNames(classFiles, 1, 200);
+        for (int threads : new int[] { 1, 4 }) {
+            final Iterator<File> iterator = classFiles.iterator();
+            final List<String> classNames = new ArrayList<String>();
+            new ExtractionPipeline(new ClassFileEngine(), threads, 7).run(new ExtractionPipeline.ClassSource() {
+                public File next() {
+                    return iterator.hasNext() ? iterator.next() : null;
+                }
+            }, new ExtractionPipeline.ResultHandler() {
+                public void handle(File classFile, JavapLOutput output) {
+                    classNames.add(output.getClassName());
+                }
+            });
+            assertEquals(sequential, classNames);
+        }
+    }
+
+    @Test
+    public void shouldReuseSharedWorkersBetweenRuns() throws Exception {
+        File classes = new File(ExtractionPipeline.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        List<File> classFiles = new ArrayList<File>(FileUtils.listFiles(classes, new SuffixFileFilter(".class"), TrueFileFilter.INSTANCE));
+        List<String> sequential = extractClassNames(classFiles, 1, 200);
+        try {
+            ExecutorService executor = SharedWorkers.executor(3);
+            for (int run = 0; run < 2; run++) {
+                final List<String> classNames = new ArrayList<String>();
+                new ExtractionPipeline(new ClassFileEngine(), 3, 10, null, executor).run(classFiles, new ExtractionPipeline.ResultHandler() {
+                    public void handle(File classFile, JavapLOutput output) {
+                        classNames.add(output.getClassName());
+                    }
+                });
+                assertEquals(sequential, classNames);
+                assertFalse(executor.isShutdown());
+            }
+            assertSame(executor, SharedWorkers.executor(2));
+        } finally {
+            SharedWorkers.shutdown();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package nl.bneijt.javapjson;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.SuffixFileFilter;
+import org.apache.commons.io.filefilter.TrueFileFilter;
+
+/**
+ * Measures how much heap the extracted model of a class retains, in total and per line number or local variable
+ * row.
+ *
+ * Run with a classes directory and the number of copies to keep as arguments, they default to the classes of this
+ * project and 200 copies.
+ */
+public class HeapFootprintBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        File classesDirectory = new File(args.length > 0 ? args[0] : "target/classes");
+        int copies = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        List<File> classFiles = new ArrayList<File>(FileUtils.listFiles(classesDirectory, new SuffixFileFilter(".class"), TrueFileFilter.INSTANCE));
+        ClassFileEngine engine = new ClassFileEngine();
+        List<JavapLOutput> outputs = new ArrayList<JavapLOutput>(classFiles.size() * copies);
+        for (File classFile : classFiles) {
+            engine.extract(classFile);
+        }
+
+        long before = usedHeap();
+        long rows = 0;
+        for (int copy = 0; copy < copies; copy++) {
+            for (File classFile : classFiles) {
+                JavapLOutput output = engine.extract(classFile);
+                rows += rows(output);
+                outputs.add(output);
+            }
+        }
+        long used = usedHeap() - before;
+
+        System.out.println("javap-json model heap footprint");
+        System.out.println("-------------------------------");
+        System.out.printf("%d classes from '%s' kept %d times, %d table rows\n", classFiles.size(), classesDirectory, copies, rows);
+        System.out.printf("    %10d bytes retained\n", used);
+        System.out.printf("    %10.1f bytes per class\n", used / (double) outputs.size());
+        System.out.printf("    %10.1f bytes per table row\n", used / (double) Math.max(1, rows));
+    }
+
+    private static long rows(JavapLOutput output) {
+        long rows = 0;
+        for (JavapMember member : output.getMembers()) {
+            rows += member.getLineNumberTable().size() + member.getLocalVariableTable().size();
+        }
+        return rows;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,80 @@
+package nl.bneijt.javapjson;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.core.JsonFactory;
+
+public class IncrementalManifestTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private File manifestFile;
+    private File classFile;
+
+    @Before
+    public void createClassFile() throws Exception {
+        manifestFile = new File(folder.getRoot(), "manifest.json");
+        classFile = folder.newFile("A.class");
+        FileUtils.writeStringToFile(classFile, "original");
+        classFile.setLastModified(1000000L);
+        IncrementalManifest manifest = IncrementalManifest.load(jsonFactory, manifestFile, "engine=classfile");
+        assertFalse(manifest.isUpToDate("A.class", classFile));
+        manifest.record("A.class", classFile);
+        manifest.save(jsonFactory);
+    }
+
+    @Test
+    public void shouldSkipUnchangedClass() throws Exception {
+        IncrementalManifest manifest = IncrementalManifest.load(jsonFactory, manifestFile, "engine=classfile");
+        assertTrue(manifest.isUpToDate("A.class", classFile));
+    }
+
+    @Test
+    public void shouldSkipTouchedClassWithSameContent() throws Exception {
+        classFile.setLastModified(2000000L);
+        IncrementalManifest manifest = IncrementalManifest.load(jsonFactory, manifestFile, "engine=classfile");
+        assertTrue(manifest.isUpToDate("A.class", classFile));
+    }
+
+    @Test
+    public void shouldProcessChangedClass() throws Exception {
+        FileUtils.writeStringToFile(classFile, "modified");
+        classFile.setLastModified(2000000L);
+        IncrementalManifest manifest = IncrementalManifest.load(jsonFactory, manifestFile, "engine=classfile");
+        assertFalse(manifest.isUpToDate("A.class", classFile));
+    }
+
+    @Test
+    public void shouldStartOverWhenConfigurationChanges() throws Exception {
+        IncrementalManifest manifest = IncrementalManifest.load(jsonFactory, manifestFile, "engine=javap");
+        assertFalse(manifest.isUpToDate("A.class", classFile));
+    }
+
+    @Test
+    public void shouldListClassesOfPreviousConfiguration() throws Exception {
+        assertEquals(Collections.emptyList(), IncrementalManifest.load(jsonFactory, manifestFile, "engine=classfile").previousConfigurationPaths());
+        IncrementalManifest manifest = IncrementalManifest.load(jsonFactory, manifestFile, "engine=javap");
+        assertEquals(Arrays.asList("A.class"), manifest.previousConfigurationPaths());
+        assertEquals(Collections.emptyList(), manifest.retainOnly(new HashSet<String>()));
+    }
+
+    @Test
+    public void shouldReportDeletedClasses() throws Exception {
+        IncrementalManifest manifest = IncrementalManifest.load(jsonFactory, manifestFile, "engine=classfile");
+        assertEquals(Collections.emptyList(), manifest.retainOnly(new HashSet<String>(Arrays.asList("A.class"))));
+        assertEquals(Arrays.asList("A.class"), manifest.retainOnly(new HashSet<String>()));
+        assertFalse(manifest.isUpToDate("A.class", classFile));
+    }
+}
@@ -0,0 +1,133 @@
+package nl.bneijt.javapjson;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import javax.tools.ToolProvider;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JarExtractionTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Packs classes of this project into a JAR, together with entries that should be skipped.
+     */
+    private File jarWith(String name, Class<?>... classes) throws Exception {
+        File jar = new File(folder.getRoot(), name);
+        ZipOutputStream output = new ZipOutputStream(new FileOutputStream(jar));
+        try {
+            output.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+            output.closeEntry();
+            for (Class<?> type : classes) {
+                String entryName = type.getName().replace('.', '/') + ".class";
+                output.putNextEntry(new ZipEntry(entryName));
+                InputStream input = type.getResourceAsStream("/" + entryName);
+                try {
+                    IOUtils.copy(input, output);
+                } finally {
+                    input.close();
+                }
+                output.closeEntry();
+            }
+        } finally {
+            output.close();
+        }
+        return jar;
+    }
+
+    private static class RecordingOutput implements OutputWriter {
+        private final List<String> written = new ArrayList<String>();
+        private boolean closed;
+
+        public void write(String relativeClassPath, JavapLOutput output) {
+            written.add(relativeClassPath + "=" + output.getClassName());
+        }
+
+        public void close() {
+            closed = true;
+        }
+
+        public void abort() {
+        }
+    }
+
+    private Map<String, RecordingOutput> extract(ExtractionEngine engine, int threads) throws Exception {
+        Map<String, File> jars = new TreeMap<String, File>();
+        jars.put("a", jarWith("a.jar", JavapEngine.class, ExtractionPipeline.ResultHandler.class));
+        jars.put("b", jarWith("b.jar", ClassFileEngine.class));
+        final Map<String, RecordingOutput> outputs = Collections.synchronizedMap(new TreeMap<String, RecordingOutput>());
+        int classes = new JarExtraction(engine, threads, 200).run(jars, new JarExtraction.OutputFactory() {
+            public OutputWriter create(String name) throws MojoExecutionException {
+                RecordingOutput output = new RecordingOutput();
+                outputs.put(name, output);
+                return output;
+            }
+        });
+        assertEquals(3, classes);
+        return outputs;
+    }
+
+    @Test
+    public void shouldExtractEveryJarIntoItsOwnOutput() throws Exception {
+        Map<String, RecordingOutput> outputs = extract(new ClassFileEngine(), 2);
+        assertEquals(2, outputs.size());
+        assertEquals(2, outputs.get("a").written.size());
+        assertTrue(outputs.get("a").written.contains(
+                "nl/bneijt/javapjson/ExtractionPipeline$ResultHandler.class=nl.bneijt.javapjson.ExtractionPipeline$ResultHandler"));
+        assertEquals("nl/bneijt/javapjson/ClassFileEngine.class=nl.bneijt.javapjson.ClassFileEngine", outputs.get("b").written.get(0));
+        assertTrue(outputs.get("a").closed && outputs.get("b").closed);
+    }
+
+    @Test
+    public void shouldRunJavapOnTheJar() throws Exception {
+        Map<String, RecordingOutput> outputs = extract(new JavapEngine(new ToolProviderJavapRunner(), new JavapLScanner()), 1);
+        assertTrue(outputs.get("a").written.contains("nl/bneijt/javapjson/JavapEngine.class=nl.bneijt.javapjson.JavapEngine"));
+    }
+
+    @Test
+    public void shouldReadEntriesThatShareTheNameOfAPlatformClass() throws Exception {
+        File source = new File(folder.getRoot(), "org/w3c/dom/Node.java");
+        FileUtils.writeStringToFile(source, "package org.w3c.dom; public class Node { public int projectField; }");
+        File classes = folder.newFolder("classes");
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null,
+                "--release", "8", "-d", classes.getPath(), source.getPath()));
+        File jar = new File(folder.getRoot(), "xml apis.jar");
+        ZipOutputStream output = new ZipOutputStream(new FileOutputStream(jar));
+        try {
+            output.putNextEntry(new ZipEntry("org/w3c/dom/Node.class"));
+            FileUtils.copyFile(new File(classes, "org/w3c/dom/Node.class"), output);
+            output.closeEntry();
+        } finally {
+            output.close();
+        }
+        ZipFile zipFile = new ZipFile(jar);
+        try {
+            List<JavapLOutput> outputs = new JavapEngine(new ToolProviderJavapRunner(), new JavapLScanner())
+                    .extractAll(zipFile, Collections.singletonList(zipFile.getEntry("org/w3c/dom/Node.class")));
+            assertEquals(Arrays.asList("public", "class"), outputs.get(0).getModifiers());
+            assertEquals("projectField", outputs.get(0).getMembers().get(0).getName());
+        } finally {
+            zipFile.close();
+        }
+    }
+}
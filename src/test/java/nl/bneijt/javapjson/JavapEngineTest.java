@@ -0,0 +1,93 @@
+package nl.bneijt.javapjson;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.ToolProvider;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JavapEngineTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Compiles a class into the temporary folder and returns its class file.
+     */
+    private File compile(String className, String source) throws Exception {
+        File sourceFile = new File(folder.getRoot(), className.replace('.', '/') + ".java");
+        FileUtils.writeStringToFile(sourceFile, source);
+        int result = ToolProvider.getSystemJavaCompiler().run(null, null, null,
+                "--release", "8", "-d", folder.getRoot().getPath(), sourceFile.getPath());
+        assertEquals(0, result);
+        return new File(folder.getRoot(), className.replace('.', '/') + ".class");
+    }
+
+    @Test
+    public void shouldRunOneJavapInvocationPerBatch() throws Exception {
+        File classes = new File(JavapEngine.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        List<File> classFiles = Arrays.asList(
+                new File(classes, "nl/bneijt/javapjson/JavapEngine.class"),
+                new File(classes, "nl/bneijt/javapjson/ExtractionPipeline$ResultHandler.class"));
+        final int[] invocations = new int[1];
+        final ToolProviderJavapRunner toolProvider = new ToolProviderJavapRunner();
+        JavapRunner countingRunner = new JavapRunner() {
+            public Reader run(String... arguments) throws MojoExecutionException {
+                invocations[0]++;
+                return toolProvider.run(arguments);
+            }
+        };
+        List<JavapLOutput> outputs = new JavapEngine(countingRunner, new JavapParser()).extractAll(classFiles);
+        assertEquals(2, outputs.size());
+        assertEquals(1, invocations[0]);
+    }
+
+    @Test
+    public void shouldReadProjectClassesThatShareTheNameOfAPlatformClass() throws Exception {
+        List<File> classFiles = Arrays.asList(
+                compile("org.w3c.dom.Node", "package org.w3c.dom; public class Node { public int projectField; }"),
+                compile("p.A", "package p; public class A { }"));
+        List<JavapLOutput> outputs = new JavapEngine(new ToolProviderJavapRunner(), new JavapLScanner()).extractAll(classFiles);
+        assertEquals(Arrays.asList("public", "class"), outputs.get(0).getModifiers());
+        assertEquals("projectField", outputs.get(0).getMembers().get(0).getName());
+        assertEquals("p.A", outputs.get(1).getClassName());
+    }
+
+    @Test
+    public void shouldCountWaitingForJavapAsJavapTime() throws Exception {
+        File classes = new File(JavapEngine.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        List<File> classFiles = Arrays.asList(new File(classes, "nl/bneijt/javapjson/JavapEngine.class"));
+        final ToolProviderJavapRunner toolProvider = new ToolProviderJavapRunner();
+        JavapRunner slowRunner = new JavapRunner() {
+            public Reader run(String... arguments) throws MojoExecutionException {
+                return new FilterReader(toolProvider.run(arguments)) {
+                    @Override
+                    public int read(char[] buffer, int offset, int length) throws IOException {
+                        try {
+                            Thread.sleep(20);
+                        } catch (InterruptedException e) {
+                            throw new InterruptedIOException();
+                        }
+                        return super.read(buffer, offset, length);
+                    }
+                };
+            }
+        };
+        PhaseTimings timings = new PhaseTimings(classes);
+        new JavapEngine(slowRunner, new JavapLScanner(), timings).extractAll(classFiles);
+        assertTrue(timings.total(PhaseTimings.JAVAP) >= 20 * 1000000L);
+        assertTrue(timings.total(PhaseTimings.PARSE) < timings.total(PhaseTimings.JAVAP) / 2);
+    }
+}
@@ -0,0 +1,75 @@
+package nl.bneijt.javapjson;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+@RunWith(Parameterized.class)
+public class JavapLScannerTest {
+    private File target;
+
+    public JavapLScannerTest(File target) {
+       this.target = target;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        String outputDirectory = ClassLoader.getSystemClassLoader().getResource("output").getFile();
+        Collection<File> outputFiles = FileUtils.listFiles(new File(outputDirectory), null, false);
+        ArrayList<Object[]> parameters = new ArrayList<Object[]>();
+        for (File file : outputFiles) {
+            parameters.add(new Object[]{ file });
+        }
+        return parameters;
+    }
+
+    @Test
+    public void shouldProduceTheSameJsonAsTheGrammar() throws Exception {
+        String contents = FileUtils.readFileToString(target);
+        JavapLOutput expected = parse(new JavapParser(), contents);
+        JavapLOutput actual = parse(new JavapLScanner(), contents);
+        assertNotNull("Grammar should match " + target.getName(), expected);
+        assertNotNull("Scanner should match " + target.getName(), actual);
+        assertEquals(target.getName(), toJson(expected), toJson(actual));
+    }
+
+    @Test
+    public void shouldProduceTheSameJsonFromValueStackAndParseTree() throws Exception {
+        String contents = FileUtils.readFileToString(target);
+        JavapLOutput expected = parse(new JavapParser(true), contents);
+        assertNotNull("Grammar should match " + target.getName(), expected);
+        assertEquals(target.getName(), toJson(expected), toJson(parse(new JavapParser(false), contents)));
+    }
+
+    private static JavapLOutput parse(JavapTextParser parser, String contents) throws IOException, MojoExecutionException {
+        JavapOutputReader reader = new JavapOutputReader(new StringReader(contents));
+        try {
+            return parser.parse(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static String toJson(JavapLOutput output) throws IOException, MojoExecutionException {
+        StringWriter json = new StringWriter();
+        JsonGenerator generator = new JsonFactory().createJsonGenerator(json);
+        output.toJsonOnto(generator);
+        generator.close();
+        return json.toString();
+    }
+}
@@ -0,0 +1,56 @@
+package nl.bneijt.javapjson;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.StringReader;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+public class JavapOutputReaderTest {
+
+    private static final String INTERFACE_OUTPUT = "public interface nl.bneijt.javapjson.JavapRunner {\n"
+            + "  public abstract java.io.Reader run(java.lang.String...) throws org.apache.maven.plugin.MojoExecutionException;\n"
+            + "}\n";
+
+    @Test
+    public void shouldReadBatchOutputOneBlockAtATime() throws Exception {
+        JavapOutputReader reader = new JavapOutputReader(new StringReader(
+                JavapParserTest.NORMAL_JAVAP_OUTPUT + INTERFACE_OUTPUT + JavapParserTest.NORMAL_JAVAP_OUTPUT));
+
+        assertTrue(reader.nextHeader().startsWith("Compiled from \"JavapJsonMojo.java\"\npublic class"));
+        assertTrue(reader.nextMember().startsWith("public nl.bneijt.javapjson.JavapJsonMojo();\n  LineNumberTable:"));
+        String execute = reader.nextMember();
+        assertTrue(execute.startsWith("public void execute()"));
+        assertTrue(execute.contains("LocalVariableTable:"));
+        assertNull(reader.nextMember());
+
+        assertEquals("public interface nl.bneijt.javapjson.JavapRunner {\n", reader.nextHeader());
+        assertTrue(reader.nextMember().trim().startsWith("public abstract java.io.Reader run"));
+        assertNull(reader.nextMember());
+
+        assertNotNull(reader.nextHeader());
+        assertNotNull(reader.nextMember());
+        assertNotNull(reader.nextMember());
+        assertNull(reader.nextMember());
+        assertNull(reader.nextHeader());
+    }
+
+    @Test
+    public void shouldReadLargeClassCompletely() throws Exception {
+        File largeClass = new File(ClassLoader.getSystemClassLoader().getResource("output/JavaParser.class.txt").getFile());
+        String contents = FileUtils.readFileToString(largeClass);
+        JavapOutputReader reader = new JavapOutputReader(new StringReader(contents));
+        assertNotNull(reader.nextHeader());
+        int members = 0;
+        String member;
+        String last = null;
+        while ((member = reader.nextMember()) != null) {
+            members++;
+            last = member;
+        }
+        assertTrue(members > 200);
+        assertTrue(contents.contains(last));
+    }
+}
@@ -1,6 +1,14 @@
 package nl.bneijt.javapjson;
 
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.maven.plugin.MojoExecutionException;
 import org.junit.Test;
+import org.parboiled.Rule;
 
 
 public class JavapParserTest {
@@ -31,4 +39,91 @@ public class JavapParserTest {
         JavapParser javapParser = new JavapParser();
         JavapLOutput parseL = javapParser.parseL(NORMAL_JAVAP_OUTPUT);
     }
+
+    @Test
+    public void shouldParseIdentifiersWithUnicodeLettersAndEscapes() {
+        JavapLOutput output = JavapParser.parseL("public class nl.bneijt.Ca\u00e9f\u00e9 extends nl.bneijt.\\u0041b$1 {\n"
+                + "public int na\u00efve_2;\n"
+                + "}\n");
+        assertEquals("nl.bneijt.Ca\u00e9f\u00e9", output.getClassName());
+        assertEquals("nl.bneijt.\\u0041b$1", output.getSuperClassName());
+        assertEquals("na\u00efve_2", output.getMembers().get(0).getName());
+    }
+
+    @Test
+    public void shouldParsePackageDescriptors() throws Exception {
+        String javapOutput = "Compiled from \"package-info.java\"\ninterface p.package-info {\n}\n";
+        assertEquals("p.package-info", JavapParser.parseL(javapOutput).getClassName());
+        assertEquals("p.package-info", JavapParser.parseValues(
+                new JavapOutputReader(new StringReader(javapOutput))).getClassName());
+    }
+
+    @Test
+    public void shouldParseThrownTypesFromGenericSignatures() throws Exception {
+        String javapOutput = "public final class com.google.common.io.Closer {\n"
+                + "  public <X extends java.lang.Exception> java.lang.RuntimeException rethrow(java.lang.Throwable, "
+                + "java.lang.Class<X>) throws java/io/IOException, X;\n"
+                + "}\n";
+        assertEquals(Arrays.asList("java/io/IOException", "X"),
+                JavapParser.parseL(javapOutput).getMembers().get(0).getExceptions());
+        assertEquals(Arrays.asList("java/io/IOException", "X"), JavapParser.parseValues(
+                new JavapOutputReader(new StringReader(javapOutput))).getMembers().get(0).getExceptions());
+    }
+
+    private static String hugeClass(int methods, String extraMember) {
+        StringBuilder output = new StringBuilder("public class nl.bneijt.javapjson.Huge {\n");
+        for (int i = 0; i < methods; i++) {
+            output.append("public int method").append(i).append("(int, java.lang.String);\n")
+                    .append("  LineNumberTable:\n")
+                    .append("    line ").append(i + 1).append(": 0\n");
+            if (i == methods / 2 && extraMember != null) {
+                output.append(extraMember);
+            }
+        }
+        return output.append("}\n").toString();
+    }
+
+    @Test
+    public void shouldParseMembersOfHugeClassesInParallelInOrder() throws Exception {
+        int methods = JavapParser.MEMBER_CHUNK * 2 + JavapParser.PARALLEL_MEMBERS + 1;
+        ForkJoinPool memberParsers = new ForkJoinPool(2);
+        JavapLOutput output;
+        try {
+            output = JavapParser.parseValues(new JavapOutputReader(new StringReader(hugeClass(methods, null))), memberParsers);
+        } finally {
+            memberParsers.shutdown();
+        }
+        assertEquals(methods, output.getMembers().size());
+        for (int i = 0; i < methods; i++) {
+            JavapMember member = output.getMembers().get(i);
+            assertEquals("method" + i, member.getName());
+            assertEquals(2, member.getParameters().size());
+        }
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void shouldReportParseErrorsOfParallelMembers() throws Exception {
+        ForkJoinPool memberParsers = new ForkJoinPool(2);
+        try {
+            JavapParser.parseValues(new JavapOutputReader(new StringReader(
+                    hugeClass(JavapParser.PARALLEL_MEMBERS * 2, "public int 0broken;\n"))), memberParsers);
+        } finally {
+            memberParsers.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldReuseParserPerThread() throws Exception {
+        final Rule[] otherThreadRule = new Rule[1];
+        Thread thread = new Thread() {
+            public void run() {
+                otherThreadRule[0] = JavapParser.rootRule();
+            }
+        };
+        thread.start();
+        thread.join();
+        assertSame(JavapParser.rootRule(), JavapParser.rootRule());
+        assertNotNull(otherThreadRule[0]);
+        assertNotSame(JavapParser.rootRule(), otherThreadRule[0]);
+    }
 }
@@ -0,0 +1,37 @@
+package nl.bneijt.javapjson;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LocalVariableTableTest {
+
+    @Test
+    public void shouldGrowAndKeepRowsInOrder() {
+        LocalVariableTable table = new LocalVariableTable();
+        for (int row = 0; row < 10; row++) {
+            table.add(row, 10 - row, row % 3, "v" + row, "I");
+        }
+        assertEquals(10, table.size());
+        assertEquals(7, table.getStart(7));
+        assertEquals(3, table.getLength(7));
+        assertEquals(1, table.getSlot(7));
+        assertEquals("v7", table.getName(7));
+    }
+
+    @Test
+    public void shouldInternNamesAndSignatures() {
+        LocalVariableTable table = new LocalVariableTable();
+        table.add(0, 5, 0, new String("this"), new String("Ljava/lang/Object;"));
+        table.add(0, 7, 0, new String("this"), new String("Ljava/lang/Object;"));
+        assertSame(table.getName(0), table.getName(1));
+        assertSame(table.getSignature(0), table.getSignature(1));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldRejectRowsPastTheEnd() {
+        LocalVariableTable table = new LocalVariableTable();
+        table.ensureCapacity(8);
+        table.getSlot(0);
+    }
+}
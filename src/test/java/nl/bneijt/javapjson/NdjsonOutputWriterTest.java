@@ -0,0 +1,106 @@
+package nl.bneijt.javapjson;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+
+public class NdjsonOutputWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static JavapLOutput classNamed(String className) {
+        JavapLOutput output = new JavapLOutput();
+        output.setClassName(className);
+        return output;
+    }
+
+    @Test
+    public void shouldWriteOneClassPerLine() throws Exception {
+        File file = new File(folder.getRoot(), "classes.ndjson");
+        NdjsonOutputWriter writer = new NdjsonOutputWriter(OutputFormat.JSON, file, false);
+        writer.write("a/A.class", classNamed("a.A"));
+        writer.write("a/B.class", classNamed("a.B"));
+        writer.close();
+
+        List<String> lines = FileUtils.readLines(file, "UTF-8");
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).startsWith("{") && lines.get(0).contains("\"className\":\"a.A\""));
+        assertTrue(lines.get(1).startsWith("{") && lines.get(1).contains("\"className\":\"a.B\""));
+        assertTrue(FileUtils.readFileToString(file, "UTF-8").endsWith("}\n"));
+    }
+
+    @Test
+    public void shouldKeepThePreviousFileWhenAborted() throws Exception {
+        File file = new File(folder.getRoot(), "classes.ndjson");
+        NdjsonOutputWriter writer = new NdjsonOutputWriter(OutputFormat.JSON, file, false);
+        writer.write("a/A.class", classNamed("a.A"));
+        writer.close();
+        writer = new NdjsonOutputWriter(OutputFormat.JSON, file, false);
+        writer.write("a/B.class", classNamed("a.B"));
+        assertEquals(1, FileUtils.readLines(file, "UTF-8").size());
+        writer.abort();
+
+        List<String> lines = FileUtils.readLines(file, "UTF-8");
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("\"className\":\"a.A\""));
+        assertEquals(Arrays.asList("classes.ndjson"), Arrays.asList(folder.getRoot().list()));
+    }
+
+    @Test
+    public void shouldCompressWithGzip() throws Exception {
+        File file = new File(folder.getRoot(), "classes.ndjson.gz");
+        NdjsonOutputWriter writer = new NdjsonOutputWriter(OutputFormat.JSON, file, true);
+        writer.write("a/A.class", classNamed("a.A"));
+        writer.close();
+
+        InputStream input = new GZIPInputStream(new FileInputStream(file));
+        try {
+            List<String> lines = IOUtils.readLines(input, "UTF-8");
+            assertEquals(1, lines.size());
+            assertTrue(lines.get(0).contains("\"className\":\"a.A\""));
+        } finally {
+            input.close();
+        }
+    }
+
+    @Test
+    public void shouldWriteSmileAsASequenceOfDocuments() throws Exception {
+        File file = new File(folder.getRoot(), "classes.smile");
+        NdjsonOutputWriter writer = new NdjsonOutputWriter(OutputFormat.SMILE, file, false);
+        writer.write("a/A.class", classNamed("a.A"));
+        writer.write("a/B.class", classNamed("a.B"));
+        writer.close();
+
+        List<String> classNames = new ArrayList<String>();
+        JsonParser parser = OutputFormat.SMILE.createFactory().createJsonParser(new FileInputStream(file));
+        try {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.FIELD_NAME && "className".equals(parser.getCurrentName())) {
+                    parser.nextToken();
+                    classNames.add(parser.getText());
+                }
+            }
+        } finally {
+            parser.close();
+        }
+        assertEquals(Arrays.asList("a.A", "a.B"), classNames);
+    }
+}
@@ -0,0 +1,122 @@
+package nl.bneijt.javapjson;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.SuffixFileFilter;
+import org.apache.commons.io.filefilter.TrueFileFilter;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * Compares the output formats on size and on encode and decode throughput, both for a document per class and for
+ * a single stream of all classes.
+ *
+ * Run with a classes directory and the number of passes as arguments, they default to the classes of this project
+ * and 200 passes. The first tenth of the passes only warms up the JIT and is not reported.
+ */
+public class OutputFormatBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        File classesDirectory = new File(args.length > 0 ? args[0] : "target/classes");
+        int passes = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        List<File> classFiles = new ArrayList<File>(FileUtils.listFiles(classesDirectory, new SuffixFileFilter(".class"), TrueFileFilter.INSTANCE));
+        List<JavapLOutput> outputs = new ArrayList<JavapLOutput>();
+        ClassFileEngine engine = new ClassFileEngine();
+        for (File classFile : classFiles) {
+            outputs.add(engine.extract(classFile));
+        }
+
+        System.out.println("javap-json output formats");
+        System.out.println("-------------------------");
+        System.out.printf("%d classes from '%s', %d passes\n", outputs.size(), classesDirectory, passes);
+
+        for (OutputFormat format : OutputFormat.values()) {
+            JsonFactory factory = format.createFactory();
+            List<byte[]> documents = encode(factory, outputs);
+            long size = 0;
+            for (byte[] document : documents) {
+                size += document.length;
+            }
+
+            for (int pass = 0; pass < passes / 10; pass++) {
+                encode(factory, outputs);
+                decode(factory, documents);
+            }
+            long start = System.nanoTime();
+            for (int pass = 0; pass < passes; pass++) {
+                encode(factory, outputs);
+            }
+            double encodeSeconds = (System.nanoTime() - start) / 1e9;
+            start = System.nanoTime();
+            for (int pass = 0; pass < passes; pass++) {
+                decode(factory, documents);
+            }
+            double decodeSeconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("    %-6s files  %8d bytes, encode %8.1f classes/sec, decode %8.1f classes/sec\n", format.getExtension(),
+                    size, outputs.size() * passes / encodeSeconds, outputs.size() * passes / decodeSeconds);
+
+            byte[] stream = encodeStream(factory, outputs);
+            start = System.nanoTime();
+            for (int pass = 0; pass < passes; pass++) {
+                encodeStream(factory, outputs);
+            }
+            encodeSeconds = (System.nanoTime() - start) / 1e9;
+            start = System.nanoTime();
+            for (int pass = 0; pass < passes; pass++) {
+                decode(factory, Collections.singletonList(stream));
+            }
+            decodeSeconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("    %-6s stream %8d bytes, encode %8.1f classes/sec, decode %8.1f classes/sec\n", format.getExtension(),
+                    stream.length, outputs.size() * passes / encodeSeconds, outputs.size() * passes / decodeSeconds);
+        }
+    }
+
+    /**
+     * Encodes all classes through a single generator, like the "ndjson" output does.
+     */
+    private static byte[] encodeStream(JsonFactory factory, List<JavapLOutput> outputs) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        JsonGenerator generator = factory.createJsonGenerator(bytes, JsonEncoding.UTF8);
+        for (JavapLOutput output : outputs) {
+            output.toJsonOnto(generator);
+        }
+        generator.close();
+        return bytes.toByteArray();
+    }
+
+    private static List<byte[]> encode(JsonFactory factory, List<JavapLOutput> outputs) throws Exception {
+        List<byte[]> documents = new ArrayList<byte[]>(outputs.size());
+        for (JavapLOutput output : outputs) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            JsonGenerator generator = factory.createJsonGenerator(bytes, JsonEncoding.UTF8);
+            output.toJsonOnto(generator);
+            generator.close();
+            documents.add(bytes.toByteArray());
+        }
+        return documents;
+    }
+
+    private static int decode(JsonFactory factory, List<byte[]> documents) throws Exception {
+        int tokens = 0;
+        for (byte[] document : documents) {
+            JsonParser parser = factory.createJsonParser(document);
+            while (parser.nextToken() != null) {
+                if (parser.getCurrentToken().isScalarValue()) {
+                    parser.getText();
+                }
+                tokens++;
+            }
+            parser.close();
+        }
+        return tokens;
+    }
+}
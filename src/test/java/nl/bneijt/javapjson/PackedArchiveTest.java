@@ -0,0 +1,120 @@
+package nl.bneijt.javapjson;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+public class PackedArchiveTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static JavapLOutput classNamed(String className) {
+        JavapLOutput output = new JavapLOutput();
+        output.setClassName(className);
+        return output;
+    }
+
+    private File writeArchive(OutputFormat format) throws Exception {
+        File file = new File(folder.getRoot(), "classes.pack");
+        PackedArchiveWriter writer = new PackedArchiveWriter(format, file);
+        writer.write("nl/bneijt/javapjson/JavapLParser.class", classNamed("nl.bneijt.javapjson.JavapLParser"));
+        writer.write("a/Z.class", classNamed("a.Z"));
+        writer.write("a/Z$Inner.class", classNamed("a.Z$Inner"));
+        writer.close();
+        return file;
+    }
+
+    private static String classNameIn(PackedArchiveReader reader, String binaryName) throws Exception {
+        JsonParser parser = reader.openParser(binaryName);
+        try {
+            while (parser.nextToken() != null) {
+                if (parser.getCurrentToken() == JsonToken.FIELD_NAME && "className".equals(parser.getCurrentName())) {
+                    parser.nextToken();
+                    return parser.getText();
+                }
+            }
+            return null;
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Test
+    public void shouldFindClassesByBinaryName() throws Exception {
+        PackedArchiveReader reader = new PackedArchiveReader(writeArchive(OutputFormat.JSON));
+        try {
+            assertEquals(OutputFormat.JSON, reader.getFormat());
+            assertEquals(Arrays.asList("a/Z", "a/Z$Inner", "nl/bneijt/javapjson/JavapLParser"), reader.names());
+            assertEquals("nl.bneijt.javapjson.JavapLParser", classNameIn(reader, "nl/bneijt/javapjson/JavapLParser"));
+            assertEquals("a.Z$Inner", classNameIn(reader, "a/Z$Inner"));
+            assertEquals("a.Z", classNameIn(reader, "a/Z"));
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void shouldReturnNullForUnknownClasses() throws Exception {
+        PackedArchiveReader reader = new PackedArchiveReader(writeArchive(OutputFormat.SMILE));
+        try {
+            assertNull(reader.find("a/Y"));
+            assertNull(reader.find("a/Z$"));
+            assertNull(reader.openParser("z/Z"));
+            assertEquals("a.Z", classNameIn(reader, "a/Z"));
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectOtherFiles() throws Exception {
+        File file = folder.newFile("other.pack");
+        FileUtils.writeStringToFile(file, "not an archive, just some text in a file");
+        new PackedArchiveReader(file);
+    }
+
+    @Test
+    public void shouldKeepThePreviousArchiveWhenAborted() throws Exception {
+        File file = writeArchive(OutputFormat.JSON);
+        PackedArchiveWriter writer = new PackedArchiveWriter(OutputFormat.JSON, file);
+        writer.write("b/B.class", classNamed("b.B"));
+        writer.abort();
+        PackedArchiveReader reader = new PackedArchiveReader(file);
+        try {
+            assertEquals(3, reader.size());
+            assertNull(reader.find("b/B"));
+        } finally {
+            reader.close();
+        }
+        assertEquals(Arrays.asList("classes.pack"), Arrays.asList(folder.getRoot().list()));
+    }
+
+    @Test
+    public void shouldRejectArchivesOfTwoGigabytes() throws Exception {
+        File file = folder.newFile("huge.pack");
+        RandomAccessFile huge = new RandomAccessFile(file, "rw");
+        try {
+            huge.setLength(PackedArchiveWriter.MAX_SIZE);
+        } finally {
+            huge.close();
+        }
+        try {
+            new PackedArchiveReader(file);
+            fail("Archive should be rejected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("2 GB"));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package nl.bneijt.javapjson;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.SuffixFileFilter;
+import org.apache.commons.io.filefilter.TrueFileFilter;
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Measures how extraction through {@link ExtractionPipeline} scales with the number of threads.
+ *
+ * Run with a classes directory and the maximum number of threads as arguments, they default to the classes of this
+ * project and the number of available processors. The first pass per engine only warms up the JIT and is not reported.
+ */
+public class ParallelExtractionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        File classesDirectory = new File(args.length > 0 ? args[0] : "target/classes");
+        List<File> classFiles = new ArrayList<File>(FileUtils.listFiles(classesDirectory, new SuffixFileFilter(".class"), TrueFileFilter.INSTANCE));
+        int processors = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.println("javap-json extraction, parallel scaling");
+        System.out.println("---------------------------------------");
+        System.out.printf("%d classes from '%s', up to %d threads\n", classFiles.size(), classesDirectory, processors);
+
+        run("classfile", new ClassFileEngine(), classFiles, processors);
+        run("javap", new JavapEngine(new ToolProviderJavapRunner(), new JavapParser()), classFiles, processors);
+    }
+
+    private static void run(String name, ExtractionEngine engine, List<File> classFiles, int processors) throws MojoExecutionException {
+        extract(engine, classFiles, 1);
+        long singleThreaded = 0;
+        for (int threads = 1; threads <= processors; threads *= 2) {
+            long time = extract(engine, classFiles, threads);
+            if (threads == 1) {
+                singleThreaded = time;
+            }
+            System.out.printf("    %-9s %3d threads: %6d ms -> %8.1f classes/sec, speedup %.2f\n", name, threads, time,
+                    classFiles.size() * 1000.0 / Math.max(1, time), singleThreaded / (double) Math.max(1, time));
+        }
+    }
+
+    private static long extract(ExtractionEngine engine, List<File> classFiles, int threads) throws MojoExecutionException {
+        final int[] count = new int[1];
+        long start = System.currentTimeMillis();
+        new ExtractionPipeline(engine, threads, 200).run(classFiles, new ExtractionPipeline.ResultHandler() {
+            public void handle(File classFile, JavapLOutput output) {
+                count[0]++;
+            }
+        });
+        if (count[0] != classFiles.size()) {
+            throw new IllegalStateException("Extracted " + count[0] + " of " + classFiles.size() + " classes");
+        }
+        return System.currentTimeMillis() - start;
+    }
+}
@@ -0,0 +1,27 @@
+package nl.bneijt.javapjson;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class ParserClassesTest {
+
+    @Test
+    public void shouldLoadParserClassesGeneratedAtBuildTime() throws Exception {
+        for (Class<?> grammar : ParserClasses.GRAMMARS) {
+            assertNotNull(grammar.getResource(grammar.getSimpleName() + "$$parboiled.class"));
+        }
+        JavapLValueParser parser = ParserClasses.create(JavapLValueParser.class);
+        assertEquals(JavapLValueParser.class.getName() + "$$parboiled", parser.getClass().getName());
+        assertNotNull(parser.getClass().getProtectionDomain().getCodeSource());
+    }
+
+    @Test
+    public void shouldParseWithGeneratedParserClasses() throws Exception {
+        JavapLParser parser = ParserClasses.create(JavapLParser.class);
+        assertEquals(JavapLParser.class.getName() + "$$parboiled", parser.getClass().getName());
+        assertEquals("nl.bneijt.javapjson.Example", JavapParser.parseL("Compiled from \"Example.java\"\n"
+                + "public class nl.bneijt.javapjson.Example {\n"
+                + "}\n").getClassName());
+    }
+}
@@ -0,0 +1,68 @@
+package nl.bneijt.javapjson;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PerClassOutputWriterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static JavapLOutput classNamed(String className) {
+        JavapLOutput output = new JavapLOutput();
+        output.setClassName(className);
+        return output;
+    }
+
+    @Test
+    public void shouldReplaceExistingJson() throws Exception {
+        PerClassOutputWriter writer = new PerClassOutputWriter(OutputFormat.JSON, folder.getRoot().getPath());
+        writer.write("a/A.class", classNamed("old"));
+        writer.write("a/A.class", classNamed("a.A"));
+        assertTrue(FileUtils.readFileToString(new File(folder.getRoot(), "a/A.json")).contains("\"a.A\""));
+        assertEquals(1, new File(folder.getRoot(), "a").list().length);
+    }
+
+    @Test
+    public void shouldWriteFromSeveralThreads() throws Exception {
+        final PerClassOutputWriter writer = new PerClassOutputWriter(OutputFormat.JSON, folder.getRoot().getPath());
+        final List<Exception> failures = new ArrayList<Exception>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            final int thread = t;
+            threads.add(new Thread() {
+                public void run() {
+                    try {
+                        for (int i = 0; i < 50; i++) {
+                            writer.write("a/C" + thread + "_" + i + ".class", classNamed("a.C" + thread + "_" + i));
+                        }
+                    } catch (Exception e) {
+                        synchronized (failures) {
+                            failures.add(e);
+                        }
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(new ArrayList<Exception>(), failures);
+        File[] files = new File(folder.getRoot(), "a").listFiles();
+        assertEquals(200, files.length);
+        for (File file : files) {
+            String className = "a." + file.getName().substring(0, file.getName().length() - ".json".length());
+            assertTrue(FileUtils.readFileToString(file).contains("\"" + className + "\""));
+        }
+    }
+}
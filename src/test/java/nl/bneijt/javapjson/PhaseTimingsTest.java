@@ -0,0 +1,51 @@
+package nl.bneijt.javapjson;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.core.JsonFactory;
+
+public class PhaseTimingsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldTakeNearestRankPercentiles() {
+        long[] sorted = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 };
+        assertEquals(5, PhaseTimings.percentile(sorted, 50));
+        assertEquals(10, PhaseTimings.percentile(sorted, 95));
+        assertEquals(7, PhaseTimings.percentile(new long[] { 7 }, 50));
+    }
+
+    @Test
+    public void shouldReportSlowestClassesByExtractAndWriteTime() throws Exception {
+        File classes = new File("classes");
+        PhaseTimings timings = new PhaseTimings(classes);
+        timings.record(PhaseTimings.DISCOVER, 1000000);
+        timings.record(PhaseTimings.EXTRACT, new File(classes, "a/Fast.class"), 1000000);
+        timings.record(PhaseTimings.EXTRACT, new File(classes, "a/Slow.class"), 3000000);
+        timings.record(PhaseTimings.PARSE, new File(classes, "a/Fast.class"), 9000000);
+        timings.record(PhaseTimings.WRITE, new File(classes, "a/Fast.class"), 1000000);
+
+        List<String> summary = timings.summary(2, 10000000);
+        assertEquals("2 classes in 10.0 ms, 200.0 classes/s", summary.get(0));
+        int slowest = summary.indexOf("  slowest classes:");
+        assertTrue(summary.get(slowest + 1).endsWith(" a/Slow.class"));
+        assertTrue(summary.get(slowest + 2).endsWith(" a/Fast.class"));
+
+        File stats = new File(folder.getRoot(), "stats.json");
+        timings.writeJson(new JsonFactory(), stats, 2, 10000000);
+        String json = FileUtils.readFileToString(stats);
+        assertTrue(json.contains("\"classesPerSecond\":200.0"));
+        assertTrue(json.contains("\"extract\":{\"count\":2,\"totalMillis\":4.0,\"p50Millis\":1.0,\"p95Millis\":3.0,\"maxMillis\":3.0}"));
+        assertTrue(json.contains("{\"path\":\"a/Slow.class\",\"millis\":3.0}"));
+    }
+}
@@ -0,0 +1,50 @@
+package nl.bneijt.javapjson;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class SharedWorkersTest {
+
+    @After
+    public void shutdown() {
+        SharedWorkers.shutdown();
+    }
+
+    @Test
+    public void shouldSizeMemberParsersFromThreads() {
+        ForkJoinPool memberParsers = SharedWorkers.memberParsers(2);
+        assertEquals(2, memberParsers.getParallelism());
+        assertSame(memberParsers, SharedWorkers.memberParsers(1));
+        ForkJoinPool larger = SharedWorkers.memberParsers(3);
+        assertEquals(3, larger.getParallelism());
+        assertTrue(memberParsers.isShutdown());
+    }
+
+    @Test
+    public void shouldStopBothPoolsAfterTheLastExecution() {
+        SharedWorkers.begin();
+        ExecutorService executor = SharedWorkers.executor(2);
+        ForkJoinPool memberParsers = SharedWorkers.memberParsers(2);
+        SharedWorkers.begin();
+        SharedWorkers.end(true);
+        assertFalse(executor.isShutdown());
+        assertFalse(memberParsers.isShutdown());
+        SharedWorkers.end(false);
+        assertTrue(executor.isShutdown());
+        assertTrue(memberParsers.isShutdown());
+        assertNotSame(executor, SharedWorkers.executor(2));
+    }
+
+    @Test
+    public void shouldKeepWorkersBetweenProjects() {
+        SharedWorkers.begin();
+        ExecutorService executor = SharedWorkers.executor(2);
+        SharedWorkers.end(false);
+        assertSame(executor, SharedWorkers.executor(2));
+    }
+}
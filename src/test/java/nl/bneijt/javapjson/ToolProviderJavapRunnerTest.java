@@ -0,0 +1,86 @@
+package nl.bneijt.javapjson;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.spi.ToolProvider;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+public class ToolProviderJavapRunnerTest {
+
+    @Test
+    public void shouldReuseRunnerForSeveralClasses() throws Exception {
+        ToolProviderJavapRunner runner = new ToolProviderJavapRunner();
+        String first = IOUtils.toString(runner.run("-l", "-classpath", System.getProperty("java.class.path"), JavapLOutput.class.getName()));
+        String second = IOUtils.toString(runner.run("-l", "-classpath", System.getProperty("java.class.path"), JavapParser.class.getName()));
+        assertTrue(first.startsWith("Compiled from \"JavapLOutput.java\""));
+        assertTrue(second.startsWith("Compiled from \"JavapParser.java\""));
+        assertTrue(second.contains("LineNumberTable:"));
+    }
+
+    private static String[] stringClassTimes(int count) {
+        String[] arguments = new String[count + 1];
+        arguments[0] = "-l";
+        for (int i = 1; i < arguments.length; i++) {
+            arguments[i] = "java.lang.String";
+        }
+        return arguments;
+    }
+
+    @Test
+    public void shouldStreamMoreOutputThanThePipeHolds() throws Exception {
+        Reader output = new ToolProviderJavapRunner().run(stringClassTimes(40));
+        try {
+            String text = IOUtils.toString(output);
+            assertTrue(text.length() > 8 * 8 * 1024);
+            assertEquals(40, text.split("Compiled from \"String.java\"", -1).length - 1);
+        } finally {
+            output.close();
+        }
+    }
+
+    @Test
+    public void shouldLetJavapFinishWhenClosedEarly() throws Exception {
+        Reader output = new ToolProviderJavapRunner().run(stringClassTimes(40));
+        assertTrue(output.read() >= 0);
+        output.close();
+    }
+
+    @Test(timeout = 10000)
+    public void shouldDropOutputNotReadWhenClosedEarly() throws Exception {
+        final AtomicBoolean finished = new AtomicBoolean();
+        ToolProvider chatty = new ToolProvider() {
+            public String name() {
+                return "javap";
+            }
+
+            public int run(PrintWriter out, PrintWriter err, String... args) {
+                char[] line = new char[1024];
+                Arrays.fill(line, 'x');
+                for (int i = 0; i < 64 * 1024; i++) {
+                    out.println(line);
+                }
+                finished.set(true);
+                return 0;
+            }
+        };
+        Reader output = new ToolProviderJavapRunner(chatty).run();
+        assertEquals('x', output.read());
+        output.close();
+        assertTrue(finished.get());
+        assertEquals(-1, output.read());
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldReportFailedInvocationOnClose() throws Exception {
+        Reader output = new ToolProviderJavapRunner().run("-l", "no.such.Class");
+        IOUtils.toString(output);
+        output.close();
+    }
+}
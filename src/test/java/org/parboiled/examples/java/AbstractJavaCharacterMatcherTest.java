@@ -0,0 +1,18 @@
+package org.parboiled.examples.java;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class AbstractJavaCharacterMatcherTest {
+
+    @Test
+    public void shouldAcceptTheSameCharactersAsTheUnicodePath() {
+        JavaLetterMatcher letter = new JavaLetterMatcher();
+        JavaLetterOrDigitMatcher letterOrDigit = new JavaLetterOrDigitMatcher();
+        for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; c++) {
+            assertEquals(Character.isJavaIdentifierStart((char) c), letter.accepts((char) c));
+            assertEquals(Character.isJavaIdentifierPart((char) c), letterOrDigit.accepts((char) c));
+        }
+    }
+}